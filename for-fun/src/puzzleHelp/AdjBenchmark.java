@@ -0,0 +1,287 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// for reading and writing word files
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// for measuring allocation, including on the workers of parallel cases
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the AdjLetters counting and printing paths over synthetic and real word lists,
+ * reporting throughput (words/sec, or entries/sec for printing) and allocation rate for each
+ * <br>
+ * Each case is warmed up before it is measured, and the original HashMap counter is kept here
+ * as the baseline every other path is compared against
+ * <br>
+ * Every case returns a checksum of what it made, all folded into one sink printed at the end, so
+ * the JIT cannot throw away work whose result is unused
+ * <br>
+ * Parallel cases run on a pool of this class's own, whose workers' allocation is added to the
+ * calling thread's
+ * @author faith
+ */
+public class AdjBenchmark {
+	/**
+	 * the # of untimed runs before measuring
+	 */
+	public static final int WARMUP = 3;
+	/**
+	 * the # of timed runs averaged together
+	 */
+	public static final int RUNS = 5;
+	/**
+	 * the # of words in each synthetic corpus
+	 */
+	public static final int[] CORPUS_SIZES = {10_000, 100_000, 1_000_000};
+	/**
+	 * the # of distinct letters in each synthetic corpus
+	 */
+	public static final int[] ALPHABET_SIZES = {26, 64, 1024};
+	
+	/**
+	 * the per-thread allocation counter of this JVM (null if it does not have one)
+	 */
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+	/**
+	 * every worker thread POOL has started
+	 */
+	private static final List<Thread> WORKERS = new CopyOnWriteArrayList<Thread>();
+	/**
+	 * the pool parallel cases run on, whose workers never retire (so their allocation is never lost)
+	 */
+	private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+			pool -> {
+				ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				WORKERS.add(worker);
+				return worker;
+			}, null, false, 0, Short.MAX_VALUE, 1, null, Long.MAX_VALUE, TimeUnit.DAYS);
+	/**
+	 * a stream which throws away everything printed to it
+	 */
+	private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+	/**
+	 * the checksums of every run of every case, added together
+	 */
+	private static long sink;
+	
+	/**
+	 * Something that can be timed
+	 * @author faith
+	 */
+	private interface Case {
+		/**
+		 * Runs the case once
+		 * @return a checksum of what the run made
+		 * @throws IOException if the case reads a file which cannot be read
+		 */
+		long run() throws IOException;
+	}
+	
+	/**
+	 * Runs every case over every corpus and prints a table of results
+	 * @param args optionally, a word file to benchmark as a real corpus (default src/puzzleHelp/words.dat)
+	 * @throws IOException if a word file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		System.out.printf("%-28s %-20s %24s %14s%n", "case", "corpus", "throughput", "alloc MB/sec");
+		
+		// synthetic corpora of every size and alphabet
+		for (int size : CORPUS_SIZES) for (int letters : ALPHABET_SIZES)
+			benchCorpus(size + "w/" + letters + "L", randomWords(size, letters, new Random(size ^ letters)));
+		
+		// and the real word list, if there is one
+		Path real = Paths.get(args.length > 0 ? args[0] : "src/puzzleHelp/words.dat");
+		if (Files.isRegularFile(real)) {
+			ArrayList<char[]> words = new ArrayList<char[]>();
+			WordReader.read(real, (buf, off, len) -> {
+				char[] word = new char[len];
+				System.arraycopy(buf, off, word, 0, len);
+				words.add(word);
+			});
+			benchCorpus(real.getFileName().toString(), words);
+		}
+		System.out.println("checksum " + sink);
+	}
+	
+	/**
+	 * Benchmarks every path over one corpus
+	 * @param name the name of the corpus
+	 * @param words the words of the corpus
+	 * @throws IOException if a temporary word file cannot be written
+	 */
+	private static void benchCorpus(String name, ArrayList<char[]> words) throws IOException {
+		// write the corpus out too, for the file-reading paths
+		Path file = Files.createTempFile("adj-bench", ".dat");
+		try {
+			StringBuilder text = new StringBuilder();
+			for (char[] word : words) text.append(word).append('\n');
+			Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+			
+			int n = words.size();
+			bench("hashmap (baseline)", name, n, "words", () -> countWithHashMaps(words).size());
+			bench("countAdjLetters", name, n, "words", () -> AdjLetters.countAdjLetters(words).size());
+			bench("countAdjMatrix", name, n, "words", () -> checksum(AdjLetters.countAdjMatrix(words)));
+			bench("ParallelAdjCounter (list)", name, n, "words", () -> checksum(ParallelAdjCounter.count(words, POOL)));
+			bench("WordReader (mapped file)", name, n, "words", () -> {
+				AdjMatrix count = new AdjMatrix();
+				WordReader.read(file, count);
+				return checksum(count);
+			});
+			bench("ParallelAdjCounter (file)", name, n, "words", () -> checksum(ParallelAdjCounter.count(file, POOL)));
+			
+			// printing costs per entry printed, not per word counted
+			AdjMatrix counted = AdjLetters.countAdjMatrix(words);
+			int entries = 0;
+			for (int from = 0; from < counted.getSize(); ++from) for (int to = 0; to < counted.getSize(); ++to)
+				if (counted.getCountAt(from, to) != 0) ++entries;
+			bench("printAdjLetters", name, entries, "entries", () -> {
+				printQuietly(counted);
+				return counted.getSize();
+			});
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	/**
+	 * Warms up, then times, a case and prints its results
+	 * @param label the name of the case
+	 * @param corpus the name of the corpus
+	 * @param units the # of units (words, entries, ...) the case handles per run
+	 * @param unit the name of the units the case handles
+	 * @param test the case to time
+	 * @throws IOException if the case fails
+	 */
+	private static void bench(String label, String corpus, int units, String unit, Case test) throws IOException {
+		for (int i = 0; i < WARMUP; ++i) sink += test.run();
+		
+		// time all runs together, measuring what this thread (and POOL) allocated meanwhile
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS; ++i) sink += test.run();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long after = allocatedBytes();
+		allocated = allocated < 0 || after < 0 ? -1 : after - allocated;
+		
+		System.out.printf("%-28s %-20s %24s %14s%n", label, corpus,
+				String.format("%,.0f %s/s", units * RUNS / seconds, unit),
+				allocated < 0 ? "n/a" : String.format("%.1f", allocated / seconds / (1 << 20)));
+	}
+	
+	/**
+	 * Sums up counts cheaply, so that a case's result is used
+	 * @param count the counts to sum up
+	 * @return the # of letters and the count of the first pair, mixed together
+	 */
+	private static long checksum(AdjCounts count) {
+		int n = count.getSize();
+		return n == 0 ? 0 : 31L * n + count.getCountAt(0, n - 1);
+	}
+	
+	/**
+	 * Prints counts to nowhere, to time the printing path without the console
+	 * @param count the counts to print
+	 */
+	private static void printQuietly(AdjCounts count) {
+		PrintStream out = System.out;
+		System.setOut(NOWHERE);
+		try {AdjLetters.printAdjLetters(count);}
+		finally {System.setOut(out);}
+	}
+	
+	/**
+	 * Makes random words
+	 * @param size the # of words to make
+	 * @param letters the # of distinct letters to use (starting from 'a')
+	 * @param random the source of randomness
+	 * @return words of 2 to 12 letters
+	 */
+	private static ArrayList<char[]> randomWords(int size, int letters, Random random) {
+		ArrayList<char[]> words = new ArrayList<char[]>(size);
+		for (int i = 0; i < size; ++i) {
+			char[] word = new char[2 + random.nextInt(11)];
+			for (int j = 0; j < word.length; ++j) word[j] = (char) ('a' + random.nextInt(letters));
+			words.add(word);
+		}
+		return words;
+	}
+	
+	/**
+	 * Gets the bytes this thread and every POOL worker have allocated so far
+	 * @return the # of bytes, or a negative # if the JVM cannot tell
+	 */
+	private static long allocatedBytes() {
+		if (THREADS == null) return -1;
+		long[] ids = new long[WORKERS.size() + 1];
+		ids[0] = Thread.currentThread().getId();
+		for (int i = 1; i < ids.length; ++i) ids[i] = WORKERS.get(i - 1).getId();
+		
+		long total = 0;
+		for (long bytes : THREADS.getThreadAllocatedBytes(ids)) {
+			// a thread which is gone has taken its count with it
+			if (bytes < 0) return -1;
+			total += bytes;
+		}
+		return total;
+	}
+	
+	/**
+	 * Finds the allocation counter, if this JVM has one
+	 * @return the JVM's ThreadMXBean, or null if it cannot count allocations
+	 */
+	private static com.sun.management.ThreadMXBean threadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean =
+					(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+				return bean;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * The original AdjLetters counter, one HashMap entry per letter, kept as the baseline
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @return the completed letter-count map
+	 */
+	private static HashMap<Character, HashMap<Character, Integer>> countWithHashMaps(ArrayList<char[]> words) {
+		HashMap<Character, HashMap<Character, Integer>> count =
+				new HashMap<Character, HashMap<Character, Integer>>();
+		
+		for (char[] word : words) {
+			for (int i = 0; i < word.length - 1; ++i) {
+				count.putIfAbsent(word[i], new HashMap<Character, Integer>());
+				count.putIfAbsent(word[i + 1], new HashMap<Character, Integer>());
+				if (count.get(word[i]).containsKey(word[i + 1])) {
+					count.get(word[i]).put(word[i + 1], count.get(word[i]).get(word[i + 1]) + 1);
+					count.get(word[i + 1]).put(word[i], count.get(word[i]).get(word[i + 1]));
+				}
+				else {
+					count.get(word[i]).put(word[i + 1], 1);
+					count.get(word[i + 1]).put(word[i], 1);
+				}
+			}
+		}
+		
+		return count;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package puzzleHelp;
+
+/**
+ * A read-only view of letter adjacency counts
+ * <br>
+ * Letters are addressed either directly or by their index, 0 <= index < getSize()
+ * @author faith
+ */
+public interface AdjCounts {
+	/**
+	 * Gets the # of letters with an index
+	 * @return the # of letters which may have counts
+	 */
+	int getSize();
+	
+	/**
+	 * Gets a letter by its index
+	 * @param index the index of the letter
+	 * @return the letter with that index
+	 */
+	char getLetter(int index);
+	
+	/**
+	 * Gets the index of a letter
+	 * @param letter the letter to look up
+	 * @return the index of the letter, or -1 if it has never been counted
+	 */
+	int getIndex(char letter);
+	
+	/**
+	 * Gets an adjacency count by letter indices
+	 * @param from the index of the first letter
+	 * @param to the index of the second letter
+	 * @return the # of times these letters were adjacent
+	 */
+	long getCountAt(int from, int to);
+	
+	/**
+	 * Checks whether the order of a pair matters
+	 * @return true if (from, to) and (to, from) are counted separately, false if they are always equal
+	 */
+	default boolean isDirected() {return false;}
+	
+	/**
+	 * Gets an adjacency count by letters
+	 * @param from the first letter
+	 * @param to the second letter
+	 * @return the # of times these letters were adjacent
+	 */
+	default long getCount(char from, char to) {
+		// look up both letters, and if either was never counted neither was the pair
+		int i = getIndex(from);
+		int j = getIndex(to);
+		if (i < 0 || j < 0) return 0;
+		return getCountAt(i, j);
+	}
+}
\ No newline at end of file
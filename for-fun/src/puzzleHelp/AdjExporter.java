@@ -0,0 +1,275 @@
+package puzzleHelp;
+
+// for writing through channels
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams adjacency counts out as CSV, JSON, or a fixed-width binary matrix
+ * <br>
+ * Everything goes through one large buffer straight to a channel, with letters encoded as
+ * UTF-8 and numbers written digit by digit, so exporting allocates nothing per entry
+ * <ul>
+ * 	<li>CSV: a "from,to,count" header, then a line for every pair with a count</li>
+ * 	<li>JSON: {"from": {"to": count, ...}, ...} for every pair with a count</li>
+ * 	<li>BINARY (big-endian): 1 if directed (else 0), # of letters n, n chars, then all n * n counts
+ * 		row by row (as in an AdjIndex)</li>
+ * </ul>
+ * @author faith
+ */
+public class AdjExporter {
+	/**
+	 * The formats counts can be exported in
+	 * @author faith
+	 */
+	public enum Format {CSV, JSON, BINARY}
+	
+	/**
+	 * the # of bytes buffered between writes
+	 */
+	public static final int BUFFER = 1 << 20;
+	
+	/**
+	 * the channel being written to
+	 */
+	private final WritableByteChannel channel;
+	/**
+	 * the bytes not yet written
+	 */
+	private final ByteBuffer buf;
+	/**
+	 * room for the digits of a long, backwards
+	 */
+	private final byte[] digits;
+	
+	/**
+	 * Initializes an exporter for a channel
+	 * @param channel the channel to write to
+	 */
+	private AdjExporter(WritableByteChannel channel) {
+		this.channel = channel;
+		buf = ByteBuffer.allocateDirect(BUFFER);
+		digits = new byte[20];
+	}
+	
+	/**
+	 * Exports counts to a file
+	 * @param count the counts to export
+	 * @param format the format to export in
+	 * @param file the file to (over)write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void export(AdjCounts count, Format format, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			export(count, format, channel);
+		}
+	}
+	
+	/**
+	 * Exports counts to a channel (which is left open)
+	 * @param count the counts to export
+	 * @param format the format to export in
+	 * @param channel the channel to write to
+	 * @throws IOException if the channel cannot be written
+	 */
+	public static void export(AdjCounts count, Format format, WritableByteChannel channel) throws IOException {
+		AdjExporter out = new AdjExporter(channel);
+		switch (format) {
+			case CSV:
+				out.writeCsv(count);
+				break;
+			case JSON:
+				out.writeJson(count);
+				break;
+			case BINARY:
+				out.writeBinary(count);
+				break;
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Writes counts as CSV
+	 * @param count the counts to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void writeCsv(AdjCounts count) throws IOException {
+		putAscii("from,to,count\n");
+		for (int from = 0; from < count.getSize(); ++from) for (int to = 0; to < count.getSize(); ++to) {
+			long pairs = count.getCountAt(from, to);
+			if (pairs == 0) continue;
+			putCsvLetter(count.getLetter(from));
+			putByte(',');
+			putCsvLetter(count.getLetter(to));
+			putByte(',');
+			putDigits(pairs);
+			putByte('\n');
+		}
+	}
+	
+	/**
+	 * Writes counts as JSON
+	 * @param count the counts to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void writeJson(AdjCounts count) throws IOException {
+		putByte('{');
+		boolean firstRow = true;
+		for (int from = 0; from < count.getSize(); ++from) {
+			boolean firstCol = true;
+			for (int to = 0; to < count.getSize(); ++to) {
+				long pairs = count.getCountAt(from, to);
+				if (pairs == 0) continue;
+				// open this letter's object before its first count
+				if (firstCol) {
+					if (!firstRow) putByte(',');
+					putJsonLetter(count.getLetter(from));
+					putAscii(":{");
+					firstRow = false;
+					firstCol = false;
+				}
+				else putByte(',');
+				putJsonLetter(count.getLetter(to));
+				putByte(':');
+				putDigits(pairs);
+			}
+			if (!firstCol) putByte('}');
+		}
+		putAscii("}\n");
+	}
+	
+	/**
+	 * Writes counts as a binary matrix
+	 * @param count the counts to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void writeBinary(AdjCounts count) throws IOException {
+		// whether (from, to) and (to, from) were counted separately, so undirected counts are known to be mirrored
+		need(8);
+		buf.putInt(count.isDirected() ? 1 : 0);
+		int n = count.getSize();
+		buf.putInt(n);
+		for (int i = 0; i < n; ++i) {
+			need(2);
+			buf.putChar(count.getLetter(i));
+		}
+		for (int from = 0; from < n; ++from) for (int to = 0; to < n; ++to) {
+			need(8);
+			buf.putLong(count.getCountAt(from, to));
+		}
+	}
+	
+	/**
+	 * Writes a letter as a CSV field, quoting it if needed
+	 * @param letter the letter to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putCsvLetter(char letter) throws IOException {
+		if (letter == ',' || letter == '\n' || letter == '\r') {
+			putByte('"');
+			putChar(letter);
+			putByte('"');
+		}
+		else if (letter == '"') putAscii("\"\"\"\"");
+		else putChar(letter);
+	}
+	
+	/**
+	 * Writes a letter as a JSON string
+	 * @param letter the letter to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putJsonLetter(char letter) throws IOException {
+		putByte('"');
+		if (letter == '"' || letter == '\\') {
+			putByte('\\');
+			putByte(letter);
+		}
+		// control characters (and lone surrogates, which are not valid UTF-8) are escaped
+		else if (letter < ' ' || Character.isSurrogate(letter)) {
+			putAscii("\\u");
+			for (int shift = 12; shift >= 0; shift -= 4) putByte(Character.forDigit((letter >> shift) & 0xF, 16));
+		}
+		else putChar(letter);
+		putByte('"');
+	}
+	
+	/**
+	 * Writes a char as UTF-8 (lone surrogates become '?')
+	 * @param letter the char to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putChar(char letter) throws IOException {
+		need(3);
+		if (letter < 0x80) buf.put((byte) letter);
+		else if (letter < 0x800) {
+			buf.put((byte) (0xC0 | (letter >> 6)));
+			buf.put((byte) (0x80 | (letter & 0x3F)));
+		}
+		else if (Character.isSurrogate(letter)) buf.put((byte) '?');
+		else {
+			buf.put((byte) (0xE0 | (letter >> 12)));
+			buf.put((byte) (0x80 | ((letter >> 6) & 0x3F)));
+			buf.put((byte) (0x80 | (letter & 0x3F)));
+		}
+	}
+	
+	/**
+	 * Writes a non-negative number as decimal digits
+	 * @param value the number to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putDigits(long value) throws IOException {
+		// fill in digits from the last
+		int at = digits.length;
+		do {
+			digits[--at] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		need(digits.length - at);
+		buf.put(digits, at, digits.length - at);
+	}
+	
+	/**
+	 * Writes plain ASCII text
+	 * @param text the text to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putAscii(String text) throws IOException {
+		for (int i = 0; i < text.length(); ++i) putByte(text.charAt(i));
+	}
+	
+	/**
+	 * Writes a single ASCII character
+	 * @param b the character to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void putByte(int b) throws IOException {
+		need(1);
+		buf.put((byte) b);
+	}
+	
+	/**
+	 * Makes room in the buffer
+	 * @param bytes the # of bytes needed
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void need(int bytes) throws IOException {
+		if (buf.remaining() < bytes) flush();
+	}
+	
+	/**
+	 * Writes out everything buffered
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void flush() throws IOException {
+		buf.flip();
+		while (buf.hasRemaining()) channel.write(buf);
+		buf.clear();
+	}
+}
\ No newline at end of file
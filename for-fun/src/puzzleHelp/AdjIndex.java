@@ -0,0 +1,590 @@
+package puzzleHelp;
+
+// for sorting keys
+import java.util.Arrays;
+
+// for reading and writing index files
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves adjacency and k-gram counts to compact binary index files, and memory-maps them back
+ * <br>
+ * Every index records the size and modification time of the word file it was counted from,
+ * so a stale index is noticed (and rebuilt) instead of being answered from
+ * <br>
+ * Layout (big-endian): MAGIC, VERSION, kind, source size, source modification time, then
+ * <ul>
+ * 	<li>for ADJ: 1 if directed (else 0), # of letters n, n chars, then the n * n counts</li>
+ * 	<li>for KGRAM: k, bits per letter, # of letters n, n chars, # of grams m,
+ * 		then m (key, count) pairs sorted by key</li>
+ * 	<li>for ANAGRAM: # of letters n, n chars, # of signatures g, g low then g high signature halves,
+ * 		g + 1 word offsets, # of words w, w + 1 letter offsets, then every word's chars</li>
+ * </ul>
+ * @author faith
+ */
+public class AdjIndex {
+	/**
+	 * the first 4 bytes of every index file ("ADJX")
+	 */
+	public static final int MAGIC = 0x41444A58;
+	/**
+	 * the version of the layout written by this class
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * the kind of an index holding adjacency counts
+	 */
+	public static final int ADJ = 0;
+	/**
+	 * the kind of an index holding k-gram counts
+	 */
+	public static final int KGRAM = 1;
+	/**
+	 * the kind of an index holding an AnagramIndex
+	 */
+	public static final int ANAGRAM = 2;
+	/**
+	 * the # of bytes in the common header
+	 */
+	public static final int HEADER = 4 + 4 + 4 + 8 + 8;
+	/**
+	 * the # of bytes buffered between writes
+	 */
+	public static final int BUFFER = 1 << 16;
+	
+	/**
+	 * No instances, just static methods
+	 */
+	private AdjIndex() {}
+	
+	/**
+	 * Gets adjacency counts for a word file, from its index if that is fresh or by counting (and
+	 * re-indexing) if not
+	 * @param source the word file
+	 * @param index the index file to use
+	 * @return the adjacency counts of source
+	 * @throws IOException if either file cannot be read, or the index cannot be written
+	 */
+	public static AdjCounts openAdj(Path source, Path index) throws IOException {
+		if (!isFresh(index, source, ADJ, 0)) {
+			// stamp the index with the source as it was before counting, so an edit made meanwhile is noticed
+			long size = Files.size(source);
+			long modified = Files.getLastModifiedTime(source).toMillis();
+			writeAdj(ParallelAdjCounter.count(source), index, size, modified);
+		}
+		return loadAdj(index);
+	}
+	
+	/**
+	 * Gets k-gram counts for a word file, from its index if that is fresh or by counting (and
+	 * re-indexing) if not
+	 * @param source the word file
+	 * @param index the index file to use
+	 * @param k the # of letters in each gram
+	 * @return the k-gram counts of source
+	 * @throws IOException if either file cannot be read, or the index cannot be written
+	 */
+	public static KGramCounts openKGrams(Path source, Path index, int k) throws IOException {
+		if (!isFresh(index, source, KGRAM, k)) {
+			long size = Files.size(source);
+			long modified = Files.getLastModifiedTime(source).toMillis();
+			KGramCounter count = new KGramCounter(k);
+			WordReader.read(source, count);
+			writeKGrams(count, index, size, modified);
+		}
+		return loadKGrams(index);
+	}
+	
+	/**
+	 * Gets the anagram index of a word file, from its index file if that is fresh or by building
+	 * (and saving) it if not
+	 * @param source the word file
+	 * @param index the index file to use
+	 * @return the anagram index of source
+	 * @throws IOException if either file cannot be read, or the index cannot be written
+	 */
+	public static AnagramIndex openAnagrams(Path source, Path index) throws IOException {
+		if (!isFresh(index, source, ANAGRAM, 0)) {
+			long size = Files.size(source);
+			long modified = Files.getLastModifiedTime(source).toMillis();
+			writeAnagrams(AnagramIndex.build(source), index, size, modified);
+		}
+		return loadAnagrams(index);
+	}
+	
+	/**
+	 * Checks if an index is up to date
+	 * @param index the index file
+	 * @param source the word file it should have been counted from
+	 * @param kind the kind of index wanted
+	 * @param k the gram length wanted (only checked for KGRAM)
+	 * @return whether the index exists, is of this version and kind, and matches source
+	 * @throws IOException if source cannot be read
+	 */
+	public static boolean isFresh(Path index, Path source, int kind, int k) throws IOException {
+		// no index, nothing fresh
+		if (!Files.isRegularFile(index) || Files.size(index) < HEADER + 4) return false;
+		
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			// read just the header (and the gram length, which always comes next)
+			ByteBuffer header = ByteBuffer.allocate(HEADER + 4);
+			while (header.hasRemaining()) if (channel.read(header) < 0) return false;
+			header.flip();
+			
+			return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == kind
+					&& header.getLong() == Files.size(source)
+					&& header.getLong() == Files.getLastModifiedTime(source).toMillis()
+					&& (kind != KGRAM || header.getInt() == k);
+		}
+	}
+	
+	/**
+	 * Writes adjacency counts to an index
+	 * @param count the counts to write
+	 * @param index the index file to (over)write
+	 * @param size the size of the word file the counts came from, before counting began
+	 * @param modified the modification time (in ms) of the word file, before counting began
+	 * @throws IOException if the index cannot be written
+	 */
+	public static void writeAdj(AdjCounts count, Path index, long size, long modified) throws IOException {
+		try (Writer out = new Writer(index, ADJ, size, modified)) {
+			out.putInt(count.isDirected() ? 1 : 0);
+			// the letters
+			int n = count.getSize();
+			out.putInt(n);
+			for (int i = 0; i < n; ++i) out.putChar(count.getLetter(i));
+			// the counts, row by row
+			for (int from = 0; from < n; ++from) for (int to = 0; to < n; ++to)
+				out.putLong(count.getCountAt(from, to));
+			out.commit();
+		}
+	}
+	
+	/**
+	 * Writes k-gram counts to an index
+	 * @param count the counts to write
+	 * @param index the index file to (over)write
+	 * @param size the size of the word file the counts came from, before counting began
+	 * @param modified the modification time (in ms) of the word file, before counting began
+	 * @throws IOException if the index cannot be written
+	 */
+	public static void writeKGrams(KGramCounter count, Path index, long size, long modified) throws IOException {
+		// gather and sort the keys, so that they can be binary searched once loaded
+		long[] keys = new long[count.getDistinct()];
+		int[] filled = {0};
+		count.forEach((key, grams) -> keys[filled[0]++] = key);
+		Arrays.sort(keys);
+		
+		try (Writer out = new Writer(index, KGRAM, size, modified)) {
+			// how keys are packed
+			out.putInt(count.getK());
+			out.putInt(count.getBits());
+			char[] letters = count.getAlphabet().getLetters();
+			out.putInt(letters.length);
+			for (char letter : letters) out.putChar(letter);
+			// the grams
+			out.putInt(keys.length);
+			for (long key : keys) {
+				out.putLong(key);
+				out.putLong(count.getCount(key));
+			}
+			out.commit();
+		}
+	}
+	
+	/**
+	 * Writes an anagram index to an index file
+	 * @param anagrams the anagram index to write
+	 * @param index the index file to (over)write
+	 * @param size the size of the word file the anagram index came from, before building began
+	 * @param modified the modification time (in ms) of the word file, before building began
+	 * @throws IOException if the index cannot be written
+	 */
+	public static void writeAnagrams(AnagramIndex anagrams, Path index, long size, long modified)
+			throws IOException {
+		try (Writer out = new Writer(index, ANAGRAM, size, modified)) {
+			// the letters
+			char[] letters = anagrams.getAlphabet().getLetters();
+			out.putInt(letters.length);
+			for (char letter : letters) out.putChar(letter);
+			// the signatures, and where each one's words start
+			out.putInt(anagrams.getSignatureCount());
+			for (long low : anagrams.getLows()) out.putLong(low);
+			for (long high : anagrams.getHighs()) out.putLong(high);
+			for (int start : anagrams.getGroupStart()) out.putInt(start);
+			// the words
+			out.putInt(anagrams.getWordCount());
+			for (int start : anagrams.getWordStart()) out.putInt(start);
+			for (char letter : anagrams.getChars()) out.putChar(letter);
+			out.commit();
+		}
+	}
+	
+	/**
+	 * Memory-maps an index of adjacency counts
+	 * @param index the index file
+	 * @return the counts in the index, read straight from the mapping
+	 * @throws IOException if the index cannot be read or is not an adjacency index
+	 */
+	public static AdjCounts loadAdj(Path index) throws IOException {
+		MappedByteBuffer buf = map(index, ADJ);
+		boolean directed = buf.getInt(HEADER) != 0;
+		// read the letters, then the counts start right after
+		int n = buf.getInt(HEADER + 4);
+		Alphabet alphabet = readAlphabet(buf, HEADER + 8, n);
+		return new MappedAdjCounts(buf, directed, alphabet, HEADER + 8 + 2 * n);
+	}
+	
+	/**
+	 * Memory-maps an index of k-gram counts
+	 * @param index the index file
+	 * @return the counts in the index, read straight from the mapping
+	 * @throws IOException if the index cannot be read or is not a k-gram index
+	 */
+	public static KGramCounts loadKGrams(Path index) throws IOException {
+		MappedByteBuffer buf = map(index, KGRAM);
+		int k = buf.getInt(HEADER);
+		int bits = buf.getInt(HEADER + 4);
+		int n = buf.getInt(HEADER + 8);
+		Alphabet alphabet = readAlphabet(buf, HEADER + 12, n);
+		// the grams come after the letters
+		int grams = HEADER + 12 + 2 * n;
+		return new MappedKGramCounts(buf, k, bits, alphabet, buf.getInt(grams), grams + 4);
+	}
+	
+	/**
+	 * Reads an anagram index from an index file
+	 * <br>
+	 * Unlike counts, the arrays are copied out of the mapping, as they are probed far more than read
+	 * @param index the index file
+	 * @return the anagram index in the file
+	 * @throws IOException if the index cannot be read or is not an anagram index
+	 */
+	public static AnagramIndex loadAnagrams(Path index) throws IOException {
+		ByteBuffer buf = map(index, ANAGRAM);
+		int n = buf.getInt(HEADER);
+		Alphabet alphabet = readAlphabet(buf, HEADER + 4, n);
+		
+		// bulk-copy each array in turn
+		buf.position(HEADER + 4 + 2 * n);
+		long[] lows = new long[buf.getInt()];
+		long[] highs = new long[lows.length];
+		int[] groupStart = new int[lows.length + 1];
+		buf.asLongBuffer().get(lows);
+		buf.position(buf.position() + 8 * lows.length);
+		buf.asLongBuffer().get(highs);
+		buf.position(buf.position() + 8 * highs.length);
+		buf.asIntBuffer().get(groupStart);
+		buf.position(buf.position() + 4 * groupStart.length);
+		
+		int[] wordStart = new int[buf.getInt() + 1];
+		buf.asIntBuffer().get(wordStart);
+		buf.position(buf.position() + 4 * wordStart.length);
+		char[] chars = new char[wordStart[wordStart.length - 1]];
+		buf.asCharBuffer().get(chars);
+		
+		return new AnagramIndex(alphabet, lows, highs, groupStart, wordStart, chars);
+	}
+	
+	/**
+	 * Maps a whole index into memory and checks its header
+	 * @param index the index file
+	 * @param kind the kind of index expected
+	 * @return the mapped index
+	 * @throws IOException if the index cannot be read or has the wrong header
+	 */
+	private static MappedByteBuffer map(Path index, int kind) throws IOException {
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Index too big to map: " + index);
+			// the mapping stays valid after the channel is closed
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.limit() < HEADER || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION
+					|| buf.getInt(8) != kind)
+				throw new IOException("Not a version " + VERSION + " index of kind " + kind + ": " + index);
+			return buf;
+		}
+	}
+	
+	/**
+	 * Reads the letters of an index
+	 * @param buf the mapped index
+	 * @param at the index of the first letter
+	 * @param n the # of letters
+	 * @return an Alphabet of those letters, in order
+	 */
+	private static Alphabet readAlphabet(ByteBuffer buf, int at, int n) {
+		Alphabet alphabet = new Alphabet();
+		for (int i = 0; i < n; ++i) alphabet.add(buf.getChar(at + 2 * i));
+		return alphabet;
+	}
+	
+	/**
+	 * Writes an index through a single buffer, to a temporary file which replaces the index
+	 * once it is committed (so a half-written index is never seen)
+	 * <br>
+	 * The header is only filled in by commit, and a Writer closed without committing (because
+	 * writing failed part way) deletes its temporary file instead
+	 * @author faith
+	 */
+	private static class Writer implements AutoCloseable {
+		/**
+		 * the index being written
+		 */
+		private final Path index;
+		/**
+		 * the temporary file actually being written
+		 */
+		private final Path temp;
+		/**
+		 * the channel to the temporary file
+		 */
+		private final FileChannel channel;
+		/**
+		 * the bytes not yet written
+		 */
+		private final ByteBuffer buf;
+		/**
+		 * the kind of index being written
+		 */
+		private final int kind;
+		/**
+		 * the size of the word file the index came from
+		 */
+		private final long size;
+		/**
+		 * the modification time of the word file the index came from
+		 */
+		private final long modified;
+		/**
+		 * whether the index is complete and in place
+		 */
+		private boolean committed;
+		
+		/**
+		 * Opens a temporary file, leaving room for the header
+		 * @param index the index file to (over)write
+		 * @param kind the kind of index being written
+		 * @param size the size of the word file the index came from
+		 * @param modified the modification time (in ms) of the word file the index came from
+		 * @throws IOException if the temporary file cannot be written
+		 */
+		public Writer(Path index, int kind, long size, long modified) throws IOException {
+			this.index = index;
+			this.kind = kind;
+			this.size = size;
+			this.modified = modified;
+			temp = index.resolveSibling(index.getFileName() + ".tmp");
+			channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			buf = ByteBuffer.allocateDirect(BUFFER);
+			
+			// a blank header (which isFresh never accepts) until commit
+			buf.position(HEADER);
+		}
+		
+		/**
+		 * Makes room in the buffer
+		 * @param bytes the # of bytes needed
+		 * @throws IOException if the file cannot be written
+		 */
+		private void need(int bytes) throws IOException {
+			if (buf.remaining() < bytes) flush();
+		}
+		
+		/**
+		 * Writes out everything buffered
+		 * @throws IOException if the file cannot be written
+		 */
+		private void flush() throws IOException {
+			buf.flip();
+			while (buf.hasRemaining()) channel.write(buf);
+			buf.clear();
+		}
+		
+		/**
+		 * @param value the int to write
+		 * @throws IOException if the file cannot be written
+		 */
+		public void putInt(int value) throws IOException {
+			need(4);
+			buf.putInt(value);
+		}
+		
+		/**
+		 * @param value the long to write
+		 * @throws IOException if the file cannot be written
+		 */
+		public void putLong(long value) throws IOException {
+			need(8);
+			buf.putLong(value);
+		}
+		
+		/**
+		 * @param value the char to write
+		 * @throws IOException if the file cannot be written
+		 */
+		public void putChar(char value) throws IOException {
+			need(2);
+			buf.putChar(value);
+		}
+		
+		/**
+		 * Finishes the file, fills in its header and moves it into place (once everything is written)
+		 * @throws IOException if the file cannot be written or moved
+		 */
+		public void commit() throws IOException {
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putInt(MAGIC).putInt(VERSION).putInt(kind).putLong(size).putLong(modified);
+			header.flip();
+			long at = 0;
+			while (header.hasRemaining()) at += channel.write(header, at);
+			channel.close();
+			Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			committed = true;
+		}
+		
+		/**
+		 * Throws away the file, unless it was committed
+		 */
+		public void close() throws IOException {
+			if (committed) return;
+			channel.close();
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Adjacency counts read straight from a mapped index
+	 * @author faith
+	 */
+	private static class MappedAdjCounts implements AdjCounts {
+		/**
+		 * the mapped index
+		 */
+		private final ByteBuffer buf;
+		/**
+		 * whether the counts depend on the order of each pair
+		 */
+		private final boolean directed;
+		/**
+		 * the letters of the index
+		 */
+		private final Alphabet alphabet;
+		/**
+		 * the index in buf of the first count
+		 */
+		private final int start;
+		
+		/**
+		 * @param buf the mapped index
+		 * @param directed whether the counts depend on the order of each pair
+		 * @param alphabet the letters of the index
+		 * @param start the index in buf of the first count
+		 */
+		public MappedAdjCounts(ByteBuffer buf, boolean directed, Alphabet alphabet, int start) {
+			this.buf = buf;
+			this.directed = directed;
+			this.alphabet = alphabet;
+			this.start = start;
+		}
+		
+		public boolean isDirected() {return directed;}
+		
+		public int getSize() {return alphabet.getSize();}
+		
+		public char getLetter(int index) {return alphabet.letterAt(index);}
+		
+		public int getIndex(char letter) {return alphabet.indexOf(letter);}
+		
+		public long getCountAt(int from, int to) {
+			int n = getSize();
+			if (from < 0 || to < 0 || from >= n || to >= n)
+				throw new IndexOutOfBoundsException("Invalid letter indices: " + from + ", " + to);
+			return buf.getLong(start + 8 * (from * n + to));
+		}
+	}
+	
+	/**
+	 * K-gram counts read straight from a mapped index
+	 * @author faith
+	 */
+	private static class MappedKGramCounts implements KGramCounts {
+		/**
+		 * the mapped index
+		 */
+		private final ByteBuffer buf;
+		/**
+		 * the # of letters in each gram
+		 */
+		private final int k;
+		/**
+		 * the # of bits each letter takes up in a key
+		 */
+		private final int bits;
+		/**
+		 * the letters of the index
+		 */
+		private final Alphabet alphabet;
+		/**
+		 * the # of grams in the index
+		 */
+		private final int grams;
+		/**
+		 * the index in buf of the first (key, count) pair
+		 */
+		private final int start;
+		
+		/**
+		 * @param buf the mapped index
+		 * @param k the # of letters in each gram
+		 * @param bits the # of bits each letter takes up in a key
+		 * @param alphabet the letters of the index
+		 * @param grams the # of grams in the index
+		 * @param start the index in buf of the first (key, count) pair
+		 */
+		public MappedKGramCounts(ByteBuffer buf, int k, int bits, Alphabet alphabet, int grams, int start) {
+			this.buf = buf;
+			this.k = k;
+			this.bits = bits;
+			this.alphabet = alphabet;
+			this.grams = grams;
+			this.start = start;
+		}
+		
+		public int getK() {return k;}
+		
+		public long pack(CharSequence gram) {return KGramCounter.pack(gram, k, bits, alphabet);}
+		
+		public String unpack(long key) {return KGramCounter.unpack(key, k, bits, alphabet);}
+		
+		public long getCount(long key) {
+			// binary search the sorted keys
+			int low = 0;
+			int high = grams - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long midKey = buf.getLong(start + 16 * mid);
+				if (midKey < key) low = mid + 1;
+				else if (midKey > key) high = mid - 1;
+				else return buf.getLong(start + 16 * mid + 8);
+			}
+			return 0;
+		}
+		
+		public void forEach(LongCountMap.Visitor visitor) {
+			for (int i = 0; i < grams; ++i)
+				visitor.visit(buf.getLong(start + 16 * i), buf.getLong(start + 16 * i + 8));
+		}
+		
+		public int getDistinct() {return grams;}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// for printing
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+// for reading from words.dat
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Finds letters adjacent to each other in words
+ * @author faith
+ */
+public class AdjLetters {
+	/**
+	 * the # of milliseconds between progress reports while reading a corpus
+	 */
+	public static final long REPORT_PERIOD = 1000;
+	
+	/**
+	 * Counts the number of times letters appear adjacent to each other in a dense matrix
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @return the completed letter-count matrix
+	 */
+	public static AdjMatrix countAdjMatrix(ArrayList<char[]> words) {
+		// initialize return variable
+		AdjMatrix count = new AdjMatrix();
+		// count every pair in every word
+		for (char[] word : words) count.addWord(word);
+		return count;
+	}
+	
+	/**
+	 * Stores the number of times letters appear adjacent to each other in a HashMap
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @return the completed letter-count map
+	 */
+	public static HashMap<Character, HashMap<Character, Integer>> countAdjLetters(ArrayList<char[]> words) {
+		// count in a matrix first, so that only each distinct pair is boxed
+		return toMap(countAdjMatrix(words));
+	}
+	
+	/**
+	 * Copies adjacency counts into nested HashMaps
+	 * @param count the counts to copy
+	 * @return a letter-count map with an entry for each pair that was ever adjacent
+	 */
+	public static HashMap<Character, HashMap<Character, Integer>> toMap(AdjCounts count) {
+		// initialize return variable
+		HashMap<Character, HashMap<Character, Integer>> map = 
+				new HashMap<Character, HashMap<Character, Integer>>();
+		
+		// loop over all pairs of letters
+		for (int from = 0; from < count.getSize(); ++from) for (int to = 0; to < count.getSize(); ++to) {
+			// only pairs that were adjacent get an entry
+			long pairs = count.getCountAt(from, to);
+			if (pairs == 0) continue;
+			map.putIfAbsent(count.getLetter(from), new HashMap<Character, Integer>());
+			map.get(count.getLetter(from)).put(count.getLetter(to), (int) pairs);
+		}
+		
+		return map;
+	}
+	
+	/**
+	 * Prints out the adjacencies in a nice form
+	 * @param words the words to find letter adjacencies in
+	 */
+	public static void printAdjLetters(ArrayList<char[]> words) {
+		printAdjLetters(countAdjMatrix(words));
+	}
+	
+	/**
+	 * Prints out already-counted adjacencies in a nice form
+	 * @param count the adjacency counts to print
+	 */
+	public static void printAdjLetters(AdjCounts count) {
+		// build up the output in one big buffer, instead of printing each entry on its own
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+		
+		// loop over all letters which have been counted
+		for (int start = 0; start < count.getSize(); ++start) {
+			// start line with that letter
+			out.print(count.getLetter(start));
+			out.print(": ");
+			// loop over all letters adjacent to this letter
+			for (int end = 0; end < count.getSize(); ++end) {
+				// print out the letter and the adjacency count, if they were ever adjacent
+				long pairs = count.getCountAt(start, end);
+				if (pairs == 0) continue;
+				out.print(count.getLetter(end));
+				out.print('(');
+				out.print(pairs);
+				out.print(") ");
+			}
+			// newline for next letter
+			out.println();
+		}
+		
+		// send it all off (but leave System.out open)
+		out.flush();
+	}
+	
+	/**
+	 * Prints out k-gram counts, one gram per line
+	 * @param count the k-gram counts to print
+	 */
+	public static void printKGrams(KGramCounts count) {
+		count.forEach((key, grams) -> System.out.println(count.unpack(key) + "(" + grams + ")"));
+	}
+	
+	/**
+	 * Counts the distinct pairs seen by any of some matrices, which may still be counting
+	 * @param parts matrices which all number the letters of WordNormalizer.LATIN alike
+	 * @return the # of pairs with a count in at least one part
+	 */
+	private static long countDistinct(Queue<AdjMatrix> parts) {
+		int n = WordNormalizer.LATIN.length();
+		long distinct = 0;
+		for (int from = 0; from < n; ++from) for (int to = from; to < n; ++to)
+			for (AdjMatrix part : parts) if (part.getCountAt(from, to) != 0) {
+				++distinct;
+				break;
+			}
+		return distinct;
+	}
+	
+	/**
+	 * Reads words from file and prints out adjacencies (or k-grams)
+	 * @param args optionally, the length of grams to count instead of adjacencies,
+	 * or a corpus (file, directory, or glob) to count adjacencies of instead of words.dat (folded to
+	 * lower case and stripped of accents, split at anything outside a to z, with progress on System.err)
+	 * @throws IOException if the file words.dat (or the corpus) cannot be read where it is expected
+	 */
+	public static void main(String args[]) throws IOException {
+		// the word file, and the folder its indices go in
+		Path words = Paths.get("src/puzzleHelp/words.dat");
+		
+		// if a gram length was given, count (or look up) those grams instead
+		if (args.length > 0 && args[0].matches("\\d+")) {
+			int k = Integer.parseInt(args[0]);
+			printKGrams(AdjIndex.openKGrams(words, words.resolveSibling("words." + k + "gram.idx"), k));
+			return;
+		}
+		// if a corpus was given, read all of its files at once (it has no index, as it may be many files),
+		// normalizing its words on the way in, since it may be any text at all
+		if (args.length > 0) {
+			// time reading and meter words both out of the reader and into the counter, so slow runs show
+			// where they are slow
+			IngestMetrics metrics = new IngestMetrics();
+			IngestMetrics.Stage tokenized = metrics.stage("tokenize");
+			IngestMetrics.Stage counted = metrics.stage("count");
+			Queue<AdjMatrix> parts = new ConcurrentLinkedQueue<AdjMatrix>();
+			metrics.setDistinct(() -> countDistinct(parts));
+			metrics.startReporting(System.err, REPORT_PERIOD);
+			CorpusLoader.read(CorpusLoader.find(args[0]), () -> {
+				// every part numbers a to z alike (and never grows), so the parts can be read while counting
+				AdjMatrix part = new AdjMatrix(new Alphabet(WordNormalizer.LATIN));
+				parts.add(part);
+				return tokenized.meter(WordNormalizer.latin(counted.meter(part)));
+			}, Runtime.getRuntime().availableProcessors(), metrics.progress());
+			metrics.finish(System.err);
+			
+			// combine each thread's counts
+			AdjMatrix count = new AdjMatrix();
+			for (AdjMatrix part : parts) count.merge(part);
+			printAdjLetters(count);
+			return;
+		}
+		
+		// count adjacencies, unless an up-to-date index of them is already saved
+		printAdjLetters(AdjIndex.openAdj(words, words.resolveSibling("words.adj.idx")));
+	}
+}
\ No newline at end of file
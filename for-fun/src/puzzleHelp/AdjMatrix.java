@@ -0,0 +1,290 @@
+package puzzleHelp;
+
+// for resizing and clearing counts
+import java.util.Arrays;
+
+/**
+ * Counts letter adjacencies in a flat primitive matrix, indexed through an Alphabet
+ * <br>
+ * Counting a pair is two table lookups and one array increment, with no boxing or hashing
+ * <br>
+ * In SYMMETRIC mode (the default) (a, b) and (b, a) are the same adjacency, so only the lower
+ * triangle is stored; in DIRECTED mode they are counted separately in a full square matrix
+ * @author faith
+ */
+public class AdjMatrix implements AdjCounts, WordSink {
+	/**
+	 * The ways pairs can be counted
+	 * @author faith
+	 */
+	public enum Mode {SYMMETRIC, DIRECTED}
+	
+	/**
+	 * how pairs are counted
+	 */
+	private final Mode mode;
+	/**
+	 * the numbering of the letters counted so far
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the adjacency counts, where counts[index(from, to)] is the count for (from, to)
+	 */
+	private long[] counts;
+	/**
+	 * the # of letters counts has room for (always at least alphabet.getSize())
+	 */
+	private int dim;
+	
+	/**
+	 * the most distinct letters a dense matrix will hold
+	 */
+	public static final int MAX_LETTERS = 4096;
+	
+	/**
+	 * Initializes an empty symmetric matrix which grows as new letters are seen
+	 */
+	public AdjMatrix() {
+		this(Mode.SYMMETRIC);
+	}
+	
+	/**
+	 * Initializes an empty matrix which grows as new letters are seen
+	 * @param mode how pairs are counted
+	 */
+	public AdjMatrix(Mode mode) {
+		this(new Alphabet(MAX_LETTERS), mode);
+	}
+	
+	/**
+	 * Initializes an empty symmetric matrix using a given numbering of letters
+	 * @param alphabet the Alphabet to index by (will be added to if new letters are seen)
+	 */
+	public AdjMatrix(Alphabet alphabet) {
+		this(alphabet, Mode.SYMMETRIC);
+	}
+	
+	/**
+	 * Initializes an empty matrix using a given numbering of letters
+	 * @param alphabet the Alphabet to index by (will be added to if new letters are seen)
+	 * @param mode how pairs are counted
+	 */
+	public AdjMatrix(Alphabet alphabet, Mode mode) {
+		this.alphabet = alphabet;
+		this.mode = mode;
+		// start big enough for the alphabet, but at least big enough for lower-case English
+		dim = Math.max(32, alphabet.getSize());
+		counts = new long[cells(dim)];
+	}
+	
+	/**
+	 * Initializes a matrix with existing counts
+	 * @param alphabet the Alphabet to index by
+	 * @param mode how pairs are counted
+	 * @param dim the # of letters counts has room for
+	 * @param counts the adjacency counts, where counts[index(from, to)] is the count for (from, to)
+	 */
+	private AdjMatrix(Alphabet alphabet, Mode mode, int dim, long[] counts) {
+		this.alphabet = alphabet;
+		this.mode = mode;
+		this.dim = dim;
+		this.counts = counts;
+	}
+	
+	/**
+	 * Counts all adjacent pairs in a word
+	 * @param word the word to count
+	 */
+	public void addWord(char[] word) {
+		addWord(word, 0, word.length);
+	}
+	
+	/**
+	 * Counts all adjacent pairs in part of a char array
+	 * @param buf the array containing the word
+	 * @param off the index of the first letter of the word
+	 * @param len the # of letters in the word
+	 */
+	public void addWord(char[] buf, int off, int len) {
+		// no pairs in words shorter than 2
+		if (len < 2) return;
+		
+		// look up the first letter, then slide along the word
+		int prev = indexFor(buf[off]);
+		for (int i = off + 1; i < off + len; ++i) {
+			int cur = indexFor(buf[i]);
+			++counts[index(prev, cur)];
+			prev = cur;
+		}
+	}
+	
+	/**
+	 * Un-counts all adjacent pairs in part of a char array, which must have been counted before
+	 * @param buf the array containing the word
+	 * @param off the index of the first letter of the word
+	 * @param len the # of letters in the word
+	 */
+	public void removeWord(char[] buf, int off, int len) {
+		// no pairs in words shorter than 2
+		if (len < 2) return;
+		
+		// slide along the word, un-counting each pair
+		int prev = alphabet.indexOf(buf[off]);
+		for (int i = off + 1; i < off + len; ++i) {
+			int cur = alphabet.indexOf(buf[i]);
+			// if this pair has no counts left, this word was never counted
+			if (prev < 0 || cur < 0 || counts[index(prev, cur)] == 0) {
+				// so put back what was taken already, and fail
+				addWord(buf, off, i - off);
+				throw new IllegalArgumentException("Word was never counted: " + new String(buf, off, len));
+			}
+			--counts[index(prev, cur)];
+			prev = cur;
+		}
+	}
+	
+	/**
+	 * Counts a single adjacency
+	 * @param from the first letter
+	 * @param to the second letter
+	 */
+	public void addPair(char from, char to) {
+		// look up both before incrementing, as the first may grow the matrix
+		int i = indexFor(from);
+		int j = indexFor(to);
+		++counts[index(i, j)];
+	}
+	
+	/**
+	 * Finds where a pair is counted
+	 * @param from the index of the first letter
+	 * @param to the index of the second letter
+	 * @return the index in counts of the pair
+	 */
+	private int index(int from, int to) {
+		if (mode == Mode.DIRECTED) return from * dim + to;
+		// the triangle is stored row by row, with row i holding i + 1 counts
+		return from >= to ? from * (from + 1) / 2 + to : to * (to + 1) / 2 + from;
+	}
+	
+	/**
+	 * Calculates the # of counts needed for some # of letters
+	 * @param letters the # of letters
+	 * @return the length counts must have
+	 */
+	private int cells(int letters) {
+		return mode == Mode.DIRECTED ? letters * letters : letters * (letters + 1) / 2;
+	}
+	
+	/**
+	 * Gets the index of a letter, making room in the matrix for it if it is new
+	 * @param letter the letter to look up
+	 * @return the index of the letter
+	 */
+	private int indexFor(char letter) {
+		int index = alphabet.add(letter);
+		// if the alphabet has no room, this matrix cannot count the letter
+		if (index < 0 || index >= MAX_LETTERS)
+			throw new IllegalStateException("Too many distinct letters for a dense matrix (at '"
+					+ letter + "')");
+		if (index >= dim) grow(index + 1);
+		return index;
+	}
+	
+	/**
+	 * Enlarges the matrix, keeping all counts
+	 * @param min the minimum new # of letters
+	 */
+	private void grow(int min) {
+		// double, so that growing is rare
+		int newDim = Math.max(min, Math.min(dim * 2, MAX_LETTERS));
+		// the triangle only gains rows at its end, so its counts stay where they are
+		if (mode == Mode.SYMMETRIC) counts = Arrays.copyOf(counts, cells(newDim));
+		// but each square row gets longer, so copy each old row into the start of its new row
+		else {
+			long[] bigger = new long[cells(newDim)];
+			for (int row = 0; row < dim; ++row)
+				System.arraycopy(counts, row * dim, bigger, row * newDim, dim);
+			counts = bigger;
+		}
+		dim = newDim;
+	}
+	
+	/**
+	 * Adds all counts from other counts into this matrix
+	 * <br>
+	 * Directed counts merged into a symmetric matrix add both directions into one pair
+	 * @param other the counts to merge in
+	 * @throws IllegalArgumentException if this matrix is directed but other is not
+	 */
+	public void merge(AdjCounts other) {
+		// symmetric counts have lost which way round each pair was
+		if (isDirected() && !other.isDirected())
+			throw new IllegalArgumentException("Cannot merge symmetric counts into a directed matrix");
+		
+		// map each of the other's letters to one of this matrix's letters
+		int[] map = new int[other.getSize()];
+		for (int i = 0; i < map.length; ++i) map[i] = indexFor(other.getLetter(i));
+		
+		for (int i = 0; i < map.length; ++i) {
+			// symmetric counts are the same both ways, so only take each pair once
+			int end = other.isDirected() ? map.length : i + 1;
+			for (int j = 0; j < end; ++j) counts[index(map[i], map[j])] += other.getCountAt(i, j);
+		}
+	}
+	
+	/**
+	 * Copies this matrix
+	 * @return an independent matrix with the same mode, letters and counts
+	 */
+	public AdjMatrix copy() {
+		return new AdjMatrix(alphabet.copy(), mode, dim, counts.clone());
+	}
+	
+	/**
+	 * Clears all counts, keeping the Alphabet
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0);
+	}
+	
+	/**
+	 * Getter for this.mode
+	 * @return how pairs are counted
+	 */
+	public Mode getMode() {return mode;}
+	
+	public boolean isDirected() {return mode == Mode.DIRECTED;}
+	
+	public int getSize() {return alphabet.getSize();}
+	
+	public char getLetter(int index) {return alphabet.letterAt(index);}
+	
+	public int getIndex(char letter) {return alphabet.indexOf(letter);}
+	
+	public long getCountAt(int from, int to) {
+		// check for argument validity
+		if (from < 0 || to < 0 || from >= getSize() || to >= getSize())
+			throw new IndexOutOfBoundsException("Invalid letter indices: " + from + ", " + to);
+		return counts[index(from, to)];
+	}
+	
+	/**
+	 * Gets a view of this matrix which cannot be used to change it
+	 * @return a read-only view which follows later changes to this matrix
+	 */
+	public AdjCounts getView() {
+		// the view just forwards all queries
+		return new AdjCounts() {
+			public boolean isDirected() {return AdjMatrix.this.isDirected();}
+			
+			public int getSize() {return AdjMatrix.this.getSize();}
+			
+			public char getLetter(int index) {return AdjMatrix.this.getLetter(index);}
+			
+			public int getIndex(char letter) {return AdjMatrix.this.getIndex(letter);}
+			
+			public long getCountAt(int from, int to) {return AdjMatrix.this.getCountAt(from, to);}
+		};
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package puzzleHelp;
+
+/**
+ * Answers targeted questions about counts (most common successors, pairs over a threshold, ...)
+ * straight from the primitive counts, without building maps or printing everything
+ * @author faith
+ */
+public class AdjQuery {
+	/**
+	 * No instances, just static methods
+	 */
+	private AdjQuery() {}
+	
+	/**
+	 * Finds the letters most often adjacent after a letter
+	 * @param count the counts to search
+	 * @param letter the first letter of each pair
+	 * @param k the most pairs to find
+	 * @return up to k pairs starting with letter, highest count first (empty if letter was never counted)
+	 */
+	public static PairList topSuccessors(AdjCounts count, char letter, int k) {
+		TopK top = new TopK(k);
+		int from = count.getIndex(letter);
+		// offer every pair in the letter's row
+		if (from >= 0) for (int to = 0; to < count.getSize(); ++to) {
+			long pairs = count.getCountAt(from, to);
+			if (pairs > 0) top.offer(PairList.pack(letter, count.getLetter(to)), pairs);
+		}
+		return PairList.of(top);
+	}
+	
+	/**
+	 * Finds the most often adjacent pairs overall
+	 * @param count the counts to search
+	 * @param k the most pairs to find
+	 * @return up to k pairs, highest count first (for symmetric counts, each pair only once, in either order)
+	 */
+	public static PairList topPairs(AdjCounts count, int k) {
+		TopK top = new TopK(k);
+		// symmetric counts are the same both ways, so only look at half of them
+		for (int from = 0; from < count.getSize(); ++from)
+			for (int to = count.isDirected() ? 0 : from; to < count.getSize(); ++to) {
+				long pairs = count.getCountAt(from, to);
+				if (pairs > 0) top.offer(PairList.pack(count.getLetter(from), count.getLetter(to)), pairs);
+			}
+		return PairList.of(top);
+	}
+	
+	/**
+	 * Finds every pair adjacent at least some # of times
+	 * @param count the counts to search
+	 * @param threshold the lowest count to include (at least 1)
+	 * @return the pairs with at least threshold adjacencies (for symmetric counts, each pair only once)
+	 */
+	public static PairList atLeast(AdjCounts count, long threshold) {
+		PairList list = new PairList(16);
+		threshold = Math.max(1, threshold);
+		for (int from = 0; from < count.getSize(); ++from)
+			for (int to = count.isDirected() ? 0 : from; to < count.getSize(); ++to) {
+				long pairs = count.getCountAt(from, to);
+				if (pairs >= threshold) list.add(count.getLetter(from), count.getLetter(to), pairs);
+			}
+		return list;
+	}
+	
+	/**
+	 * Finds every pair starting with a letter which is adjacent at least some # of times
+	 * @param count the counts to search
+	 * @param letter the first letter of each pair
+	 * @param threshold the lowest count to include (at least 1)
+	 * @return the pairs starting with letter with at least threshold adjacencies
+	 */
+	public static PairList atLeast(AdjCounts count, char letter, long threshold) {
+		PairList list = new PairList(16);
+		threshold = Math.max(1, threshold);
+		int from = count.getIndex(letter);
+		if (from >= 0) for (int to = 0; to < count.getSize(); ++to) {
+			long pairs = count.getCountAt(from, to);
+			if (pairs >= threshold) list.add(letter, count.getLetter(to), pairs);
+		}
+		return list;
+	}
+	
+	/**
+	 * Finds the most common grams
+	 * @param count the counts to search
+	 * @param k the most grams to find
+	 * @return up to k packed grams and their counts, highest count first (unpack with count.unpack)
+	 */
+	public static TopK topGrams(KGramCounts count, int k) {
+		TopK top = new TopK(k);
+		count.forEach(top::offer);
+		return top.sort();
+	}
+}
\ No newline at end of file
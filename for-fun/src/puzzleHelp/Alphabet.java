@@ -0,0 +1,158 @@
+package puzzleHelp;
+
+/**
+ * A compact numbering of letters, so that counts can be kept in small dense arrays
+ * instead of arrays indexed by raw character code
+ * <br>
+ * Letters are numbered 0, 1, 2, ... in the order they are first added
+ * @author faith
+ */
+public final class Alphabet {
+	/**
+	 * the lookup table, split into pages of PAGE characters (indexed by letter >>> PAGE_BITS)
+	 * <br>
+	 * each entry holds index + 1 of that letter, or 0 if the letter is not in this Alphabet
+	 */
+	private final int[][] pages;
+	/**
+	 * the letters of this Alphabet, in index order
+	 */
+	private char[] letters;
+	/**
+	 * the # of letters in this Alphabet
+	 */
+	private int size;
+	/**
+	 * the maximum # of letters this Alphabet can hold
+	 */
+	private final int capacity;
+	
+	/**
+	 * the # of bits of a character used to index within a page
+	 */
+	private static final int PAGE_BITS = 8;
+	/**
+	 * the # of characters covered by each page of the lookup table
+	 */
+	private static final int PAGE = 1 << PAGE_BITS;
+	/**
+	 * the # of distinct char values
+	 */
+	public static final int CHARS = Character.MAX_VALUE + 1;
+	
+	/**
+	 * Initializes an empty Alphabet which can grow to hold every char
+	 */
+	public Alphabet() {
+		this(CHARS);
+	}
+	
+	/**
+	 * Initializes an empty Alphabet with a limited size
+	 * @param capacity the maximum # of letters this Alphabet can hold
+	 */
+	public Alphabet(int capacity) {
+		// check for argument validity
+		if (capacity <= 0 || capacity > CHARS)
+			throw new IllegalArgumentException("Invalid alphabet capacity: " + capacity);
+		
+		this.capacity = capacity;
+		pages = new int[CHARS / PAGE][];
+		letters = new char[Math.min(capacity, 32)];
+		size = 0;
+	}
+	
+	/**
+	 * Initializes an Alphabet holding exactly the given letters (duplicates are ignored)
+	 * @param letters the letters to number, in order
+	 */
+	public Alphabet(CharSequence letters) {
+		this(CHARS);
+		for (int i = 0; i < letters.length(); ++i) add(letters.charAt(i));
+	}
+	
+	/**
+	 * Gets the index of a letter, without adding it
+	 * @param letter the letter to look up
+	 * @return the index of the letter, or -1 if it is not in this Alphabet
+	 */
+	public int indexOf(char letter) {
+		int[] page = pages[letter >>> PAGE_BITS];
+		return page == null ? -1 : page[letter & (PAGE - 1)] - 1;
+	}
+	
+	/**
+	 * Gets the index of a letter, adding it if it is new
+	 * @param letter the letter to look up
+	 * @return the index of the letter, or -1 if it is new and this Alphabet is full
+	 */
+	public int add(char letter) {
+		// find (or create) the page for this letter
+		int[] page = pages[letter >>> PAGE_BITS];
+		if (page == null) page = pages[letter >>> PAGE_BITS] = new int[PAGE];
+		
+		// if this letter is already numbered, done
+		int index = page[letter & (PAGE - 1)] - 1;
+		if (index >= 0) return index;
+		// if there is no room for a new letter, note that
+		if (size == capacity) return -1;
+		
+		// make room in letters if needed
+		if (size == letters.length) {
+			char[] bigger = new char[Math.min(capacity, size * 2)];
+			System.arraycopy(letters, 0, bigger, 0, size);
+			letters = bigger;
+		}
+		// number the letter
+		letters[size] = letter;
+		page[letter & (PAGE - 1)] = size + 1;
+		return size++;
+	}
+	
+	/**
+	 * Gets a letter by its index
+	 * @param index the index of the letter
+	 * @return the letter with that index
+	 */
+	public char letterAt(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Invalid letter index: " + index);
+		return letters[index];
+	}
+	
+	/**
+	 * Getter for this.size
+	 * @return the # of letters in this Alphabet
+	 */
+	public int getSize() {return size;}
+	
+	/**
+	 * Getter for this.capacity
+	 * @return the maximum # of letters this Alphabet can hold
+	 */
+	public int getCapacity() {return capacity;}
+	
+	/**
+	 * Gets all the letters of this Alphabet
+	 * @return a copy of the letters, in index order
+	 */
+	public char[] getLetters() {
+		char[] copy = new char[size];
+		System.arraycopy(letters, 0, copy, 0, size);
+		return copy;
+	}
+	
+	/**
+	 * Copies this Alphabet
+	 * @return an independent Alphabet with the same letters in the same order
+	 */
+	public Alphabet copy() {
+		Alphabet copy = new Alphabet(capacity);
+		for (int i = 0; i < size; ++i) copy.add(letters[i]);
+		return copy;
+	}
+	
+	public String toString() {
+		return "Alphabet " + new String(letters, 0, size);
+	}
+}
\ No newline at end of file
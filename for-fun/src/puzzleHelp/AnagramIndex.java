@@ -0,0 +1,512 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// for building from a word file
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Finds dictionary words by their letters, regardless of order
+ * <br>
+ * Each word's signature is how many of each letter it has, 4 bits per letter packed into two longs,
+ * and words with the same signature (anagrams of each other) are stored together, so
+ * <ul>
+ * 	<li>an exact anagram query is one hash probe</li>
+ * 	<li>a rack query (words using at most the rack's letters) probes every smaller signature of the
+ * 		rack, or for big racks checks every signature with a few word-wide operations instead</li>
+ * </ul>
+ * Letters are numbered by an Alphabet of at most MAX_LETTERS letters, and a word with any letter
+ * more than MAX_REPEATS times (or with letters past the first MAX_LETTERS) is skipped
+ * @author faith
+ */
+public class AnagramIndex {
+	/**
+	 * the numbering of the letters in signatures
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the counts of letters 0 to 15 of each signature
+	 */
+	private final long[] lows;
+	/**
+	 * the counts of letters 16 to 31 of each signature
+	 */
+	private final long[] highs;
+	/**
+	 * the index of the first word of each signature (plus the end of the last)
+	 */
+	private final int[] groupStart;
+	/**
+	 * the index in chars of the first letter of each word (plus the end of the last)
+	 */
+	private final int[] wordStart;
+	/**
+	 * the letters of every word, one after another
+	 */
+	private final char[] chars;
+	/**
+	 * each signature's index + 1 (0 for an empty slot), by hash
+	 */
+	private final int[] table;
+	
+	/**
+	 * the most distinct letters signatures can hold
+	 */
+	public static final int MAX_LETTERS = 32;
+	/**
+	 * the most times a letter can appear in an indexed word
+	 */
+	public static final int MAX_REPEATS = 7;
+	/**
+	 * the rack letter which can stand for any letter
+	 */
+	public static final char BLANK = '?';
+	/**
+	 * the top bit of every 4-bit count
+	 */
+	private static final long GUARDS = 0x8888888888888888L;
+	
+	/**
+	 * Initializes an index from finished arrays
+	 * @param alphabet the numbering of the letters in signatures
+	 * @param lows the counts of letters 0 to 15 of each signature
+	 * @param highs the counts of letters 16 to 31 of each signature
+	 * @param groupStart the index of the first word of each signature, plus the end of the last
+	 * @param wordStart the index in chars of the first letter of each word, plus the end of the last
+	 * @param chars the letters of every word
+	 */
+	AnagramIndex(Alphabet alphabet, long[] lows, long[] highs, int[] groupStart, int[] wordStart, char[] chars) {
+		this.alphabet = alphabet;
+		this.lows = lows;
+		this.highs = highs;
+		this.groupStart = groupStart;
+		this.wordStart = wordStart;
+		this.chars = chars;
+		
+		// hash every signature, keeping the table at most half full
+		table = new int[Integer.highestOneBit(Math.max(2, lows.length * 2) - 1) << 1];
+		int mask = table.length - 1;
+		for (int group = 0; group < lows.length; ++group) {
+			int slot = hash(lows[group], highs[group]) & mask;
+			while (table[slot] != 0) slot = (slot + 1) & mask;
+			table[slot] = group + 1;
+		}
+	}
+	
+	/**
+	 * Builds an index of every word in a file
+	 * @param file the UTF-8 file to read
+	 * @return the index of the file's words
+	 * @throws IOException if the file cannot be read
+	 */
+	public static AnagramIndex build(Path file) throws IOException {
+		Builder builder = new Builder();
+		WordReader.read(file, builder);
+		return builder.build();
+	}
+	
+	/**
+	 * Finds every word made of exactly some letters
+	 * @param letters the letters, in any order
+	 * @return the words with exactly those letters, in the order they were added
+	 */
+	public List<String> anagrams(CharSequence letters) {
+		List<String> found = new ArrayList<String>();
+		long[] sig = new long[2];
+		if (sign(letters, sig)) addGroup(find(sig[0], sig[1]), found);
+		return found;
+	}
+	
+	/**
+	 * Finds every word which can be made from a rack of letters (each rack letter used at most once)
+	 * @param rack the letters available, in any order, with BLANK for a letter which can be anything
+	 * @return the words which can be made, grouped by signature
+	 */
+	public List<String> formable(CharSequence rack) {
+		// split the rack into blanks and known letters (unknown letters can never be used)
+		long[] sig = new long[2];
+		int blanks = 0;
+		for (int i = 0; i < rack.length(); ++i) {
+			if (rack.charAt(i) == BLANK) ++blanks;
+			else {
+				int index = alphabet.indexOf(rack.charAt(i));
+				if (index >= 0 && count(sig, index) < MAX_REPEATS) sig[index >>> 4] += 1L << ((index & 15) * 4);
+			}
+		}
+		
+		List<String> found = new ArrayList<String>();
+		// probing costs one per smaller signature, and scanning one per indexed signature
+		if (blanks == 0 && subsets(sig) <= lows.length) probeSubsets(sig, 0, 0, 0, found);
+		else for (int group = 0; group < lows.length; ++group)
+			if (fits(lows[group], highs[group], sig, blanks)) addGroup(group, found);
+		return found;
+	}
+	
+	/**
+	 * Probes every signature using at most a rack's letters
+	 * @param rack the counts of the rack's letters
+	 * @param letter the next letter to choose a count of
+	 * @param low the counts of letters 0 to 15 chosen so far
+	 * @param high the counts of letters 16 to 31 chosen so far
+	 * @param found where to add words of signatures which are indexed
+	 */
+	private void probeSubsets(long[] rack, int letter, long low, long high, List<String> found) {
+		// skip letters the rack has none of
+		while (letter < MAX_LETTERS && count(rack, letter) == 0) ++letter;
+		if (letter == MAX_LETTERS) {
+			if (low != 0 || high != 0) addGroup(find(low, high), found);
+			return;
+		}
+		
+		// try every count of this letter, from none to all of the rack's
+		long one = 1L << ((letter & 15) * 4);
+		for (int n = 0; n <= count(rack, letter); ++n) {
+			if (letter < 16) probeSubsets(rack, letter + 1, low + n * one, high, found);
+			else probeSubsets(rack, letter + 1, low, high + n * one, found);
+		}
+	}
+	
+	/**
+	 * Counts the signatures using at most a rack's letters
+	 * @param rack the counts of the rack's letters
+	 * @return the # of (possibly empty) smaller signatures, or Long.MAX_VALUE if there are too many to count
+	 */
+	private static long subsets(long[] rack) {
+		long product = 1;
+		for (int letter = 0; letter < MAX_LETTERS; ++letter) {
+			product *= count(rack, letter) + 1;
+			if (product > Integer.MAX_VALUE) return Long.MAX_VALUE;
+		}
+		return product;
+	}
+	
+	/**
+	 * Checks whether a signature can be made from a rack
+	 * @param low the counts of letters 0 to 15 of the signature
+	 * @param high the counts of letters 16 to 31 of the signature
+	 * @param rack the counts of the rack's letters
+	 * @param blanks the # of letters which can be anything
+	 * @return true if every letter of the signature is covered by the rack or a blank
+	 */
+	private static boolean fits(long low, long high, long[] rack, int blanks) {
+		// with every count below 8, a count's guard bit survives the subtraction only if the rack has enough
+		if ((((rack[0] | GUARDS) - low) & ((rack[1] | GUARDS) - high) & GUARDS) == GUARDS) return true;
+		if (blanks == 0) return false;
+		
+		// otherwise add up what is missing, and see if the blanks cover it
+		long[] sig = {low, high};
+		int missing = 0;
+		for (int letter = 0; letter < MAX_LETTERS && missing <= blanks; ++letter)
+			missing += Math.max(0, count(sig, letter) - count(rack, letter));
+		return missing <= blanks;
+	}
+	
+	/**
+	 * Computes the signature of some letters
+	 * @param letters the letters to sign
+	 * @param sig where to put the signature (the counts of letters 0 to 15, then 16 to 31)
+	 * @return false if some letter is not in the Alphabet or is repeated too often, so nothing can match
+	 */
+	private boolean sign(CharSequence letters, long[] sig) {
+		for (int i = 0; i < letters.length(); ++i) {
+			int index = alphabet.indexOf(letters.charAt(i));
+			if (index < 0 || count(sig, index) == MAX_REPEATS) return false;
+			sig[index >>> 4] += 1L << ((index & 15) * 4);
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the count of one letter from a signature
+	 * @param sig the signature
+	 * @param letter the index of the letter
+	 * @return the # of that letter
+	 */
+	private static int count(long[] sig, int letter) {
+		return (int) (sig[letter >>> 4] >>> ((letter & 15) * 4)) & 15;
+	}
+	
+	/**
+	 * Finds a signature in the table
+	 * @param low the counts of letters 0 to 15
+	 * @param high the counts of letters 16 to 31
+	 * @return the index of the signature, or -1 if no word has it
+	 */
+	private int find(long low, long high) {
+		int mask = table.length - 1;
+		for (int slot = hash(low, high) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int group = table[slot] - 1;
+			if (lows[group] == low && highs[group] == high) return group;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Hashes a signature
+	 * @param low the counts of letters 0 to 15
+	 * @param high the counts of letters 16 to 31
+	 * @return the hash of the signature
+	 */
+	static int hash(long low, long high) {
+		long hash = (low * 0x9E3779B97F4A7C15L) ^ (high * 0xC2B2AE3D27D4EB4FL);
+		return (int) (hash ^ (hash >>> 32));
+	}
+	
+	/**
+	 * Adds every word with a signature to a list
+	 * @param group the index of the signature, or -1 for none
+	 * @param found the list to add to
+	 */
+	private void addGroup(int group, List<String> found) {
+		if (group < 0) return;
+		for (int word = groupStart[group]; word < groupStart[group + 1]; ++word)
+			found.add(new String(chars, wordStart[word], wordStart[word + 1] - wordStart[word]));
+	}
+	
+	/**
+	 * Getter for this.alphabet
+	 * @return a copy of the numbering of the letters in signatures
+	 */
+	public Alphabet getAlphabet() {return alphabet.copy();}
+	
+	/**
+	 * Gets the # of words
+	 * @return the # of distinct words indexed
+	 */
+	public int getWordCount() {return wordStart.length - 1;}
+	
+	/**
+	 * Gets the # of signatures
+	 * @return the # of distinct letter multisets among the words
+	 */
+	public int getSignatureCount() {return lows.length;}
+	
+	/**
+	 * Getter for this.lows, for saving
+	 * @return the counts of letters 0 to 15 of each signature (not a copy)
+	 */
+	long[] getLows() {return lows;}
+	
+	/**
+	 * Getter for this.highs, for saving
+	 * @return the counts of letters 16 to 31 of each signature (not a copy)
+	 */
+	long[] getHighs() {return highs;}
+	
+	/**
+	 * Getter for this.groupStart, for saving
+	 * @return the index of the first word of each signature, plus the end of the last (not a copy)
+	 */
+	int[] getGroupStart() {return groupStart;}
+	
+	/**
+	 * Getter for this.wordStart, for saving
+	 * @return the index of the first letter of each word, plus the end of the last (not a copy)
+	 */
+	int[] getWordStart() {return wordStart;}
+	
+	/**
+	 * Getter for this.chars, for saving
+	 * @return the letters of every word (not a copy)
+	 */
+	char[] getChars() {return chars;}
+	
+	/**
+	 * Builds an AnagramIndex from words in any order, skipping repeated words
+	 * @author faith
+	 */
+	public static class Builder implements WordSink {
+		/**
+		 * the numbering of the letters in signatures
+		 */
+		private final Alphabet alphabet;
+		/**
+		 * the counts of letters 0 to 15 of each signature
+		 */
+		private long[] lows;
+		/**
+		 * the counts of letters 16 to 31 of each signature
+		 */
+		private long[] highs;
+		/**
+		 * the latest word of each signature, or -1
+		 */
+		private int[] last;
+		/**
+		 * the # of signatures
+		 */
+		private int groups;
+		/**
+		 * each signature's index + 1 (0 for an empty slot), by hash
+		 */
+		private int[] table;
+		/**
+		 * the letters of every word, one after another
+		 */
+		private char[] chars;
+		/**
+		 * the index in chars of the first letter of each word
+		 */
+		private int[] wordStart;
+		/**
+		 * the previous word of the same signature as each word, or -1
+		 */
+		private int[] previous;
+		/**
+		 * the # of words
+		 */
+		private int words;
+		/**
+		 * the # of letters in chars
+		 */
+		private int used;
+		/**
+		 * the # of words which could not be signed
+		 */
+		private int skipped;
+		/**
+		 * the signature being worked out, reused
+		 */
+		private final long[] sig;
+		
+		/**
+		 * Initializes a builder with no words
+		 */
+		public Builder() {
+			alphabet = new Alphabet(MAX_LETTERS);
+			lows = new long[256];
+			highs = new long[256];
+			last = new int[256];
+			groups = 0;
+			table = new int[512];
+			chars = new char[4096];
+			wordStart = new int[512];
+			previous = new int[512];
+			words = 0;
+			used = 0;
+			skipped = 0;
+			sig = new long[2];
+		}
+		
+		public void addWord(char[] buf, int off, int len) {
+			// work out the signature, giving up on words which do not fit one
+			sig[0] = 0;
+			sig[1] = 0;
+			for (int i = off; i < off + len; ++i) {
+				int index = alphabet.add(buf[i]);
+				if (index < 0 || count(sig, index) == MAX_REPEATS) {
+					++skipped;
+					return;
+				}
+				sig[index >>> 4] += 1L << ((index & 15) * 4);
+			}
+			
+			// find (or make) the signature's group, and skip the word if it is already there
+			int group = group(sig[0], sig[1]);
+			for (int word = last[group]; word >= 0; word = previous[word])
+				if (Arrays.equals(chars, wordStart[word], wordStart[word] + len, buf, off, off + len)) return;
+			
+			// store the word
+			if (words + 2 > wordStart.length) {
+				wordStart = Arrays.copyOf(wordStart, wordStart.length * 2);
+				previous = Arrays.copyOf(previous, wordStart.length);
+			}
+			if (used + len > chars.length) chars = Arrays.copyOf(chars, Math.max(chars.length * 2, used + len));
+			System.arraycopy(buf, off, chars, used, len);
+			wordStart[words] = used;
+			used += len;
+			wordStart[words + 1] = used;
+			previous[words] = last[group];
+			last[group] = words++;
+		}
+		
+		/**
+		 * Gets the length of a stored word
+		 * @param word the index of the word
+		 * @return the # of letters in it
+		 */
+		private int length(int word) {
+			return wordStart[word + 1] - wordStart[word];
+		}
+		
+		/**
+		 * Finds the group of a signature, making one if it is new
+		 * @param low the counts of letters 0 to 15
+		 * @param high the counts of letters 16 to 31
+		 * @return the index of the group
+		 */
+		private int group(long low, long high) {
+			int mask = table.length - 1;
+			int slot = hash(low, high) & mask;
+			for (; table[slot] != 0; slot = (slot + 1) & mask) {
+				int group = table[slot] - 1;
+				if (lows[group] == low && highs[group] == high) return group;
+			}
+			
+			// a new signature
+			if (groups == lows.length) {
+				lows = Arrays.copyOf(lows, groups * 2);
+				highs = Arrays.copyOf(highs, groups * 2);
+				last = Arrays.copyOf(last, groups * 2);
+			}
+			lows[groups] = low;
+			highs[groups] = high;
+			last[groups] = -1;
+			table[slot] = groups + 1;
+			// keep the table at most half full
+			if (++groups * 2 > table.length) {
+				table = new int[table.length * 2];
+				mask = table.length - 1;
+				for (int group = 0; group < groups; ++group) {
+					slot = hash(lows[group], highs[group]) & mask;
+					while (table[slot] != 0) slot = (slot + 1) & mask;
+					table[slot] = group + 1;
+				}
+			}
+			return groups - 1;
+		}
+		
+		/**
+		 * Finishes the index, laying the words out signature by signature
+		 * @return the index of every word added
+		 */
+		public AnagramIndex build() {
+			int[] groupStart = new int[groups + 1];
+			int[] newStart = new int[words + 1];
+			char[] newChars = new char[used];
+			
+			int word = 0;
+			int at = 0;
+			for (int group = 0; group < groups; ++group) {
+				groupStart[group] = word;
+				// every word of a signature is the same length
+				int count = 0;
+				for (int w = last[group]; w >= 0; w = previous[w]) ++count;
+				int len = length(last[group]);
+				// the words are chained newest first, so fill the group's slots from the back
+				int slot = word + count;
+				for (int w = last[group]; w >= 0; w = previous[w]) {
+					--slot;
+					newStart[slot] = at + (slot - word) * len;
+					System.arraycopy(chars, wordStart[w], newChars, newStart[slot], len);
+				}
+				word += count;
+				at += count * len;
+			}
+			groupStart[groups] = word;
+			newStart[words] = used;
+			return new AnagramIndex(alphabet.copy(), Arrays.copyOf(lows, groups), Arrays.copyOf(highs, groups),
+					groupStart, newStart, newChars);
+		}
+		
+		/**
+		 * Getter for this.skipped
+		 * @return the # of words which could not be indexed
+		 */
+		public int getSkipped() {return skipped;}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package puzzleHelp;
+
+/**
+ * Approximately counts every k-gram in words, in a fixed amount of memory
+ * <br>
+ * Grams are packed into keys just like KGramCounter, but counted in a CountMinSketch, alongside a
+ * small table of the heaviest grams seen so far: once a gram is in the table it is counted exactly
+ * from then on, so the most common grams (and so top-K queries) stay accurate
+ * <br>
+ * A heavy gram's count still starts from the sketch's estimate when it entered the table, which may
+ * have been too high, so it is an upper bound; getError gives how far above the true count it can be
+ * <br>
+ * The table is an indexed min-heap of parallel arrays, so a heavier gram replaces the lightest in
+ * O(log heavySize) without allocating anything
+ * <br>
+ * Only the heavy grams can be listed, so forEach and getDistinct only cover the table
+ * @author faith
+ */
+public class ApproxKGramCounter implements KGramCounts, WordSink {
+	/**
+	 * the # of letters in each counted gram
+	 */
+	private final int k;
+	/**
+	 * the numbering of the letters counted so far
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the # of bits each letter takes up in a key
+	 */
+	private final int bits;
+	/**
+	 * the mask keeping only the bits of the last k letters of a key
+	 */
+	private final long mask;
+	/**
+	 * the approximate count of every gram
+	 */
+	private final CountMinSketch sketch;
+	/**
+	 * the place + 1 in the heap of each heavy gram
+	 */
+	private final LongCountMap heavy;
+	/**
+	 * the keys of the heavy grams, as a min-heap on heapCounts
+	 */
+	private final long[] heapKeys;
+	/**
+	 * the counts of the heavy grams (their estimates on entry, plus every hit since), by place in the heap
+	 */
+	private final long[] heapCounts;
+	/**
+	 * the most each heavy gram's count may be too high by (from its estimate on entry), by place in
+	 * the heap
+	 */
+	private final long[] heapErrors;
+	/**
+	 * the # of grams in the heap
+	 */
+	private int heapSize;
+	
+	/**
+	 * Initializes a counter with an Alphabet as big as the key allows
+	 * @param k the # of letters in each gram
+	 * @param sketch the (empty) sketch to count in
+	 * @param heavySize the most grams to count exactly
+	 */
+	public ApproxKGramCounter(int k, CountMinSketch sketch, int heavySize) {
+		this(k, new Alphabet(1 << Math.min(16, KGramCounter.KEY_BITS / Math.max(1, k))), sketch, heavySize);
+	}
+	
+	/**
+	 * Initializes a counter using a given numbering of letters
+	 * @param k the # of letters in each gram
+	 * @param alphabet the Alphabet to index by (will be added to if new letters are seen)
+	 * @param sketch the (empty) sketch to count in
+	 * @param heavySize the most grams to count exactly
+	 */
+	public ApproxKGramCounter(int k, Alphabet alphabet, CountMinSketch sketch, int heavySize) {
+		// check for argument validity
+		if (k <= 0 || k > KGramCounter.KEY_BITS)
+			throw new IllegalArgumentException("Invalid gram length: " + k);
+		if (heavySize <= 0)
+			throw new IllegalArgumentException("Invalid heavy hitter table size: " + heavySize);
+		
+		this.k = k;
+		this.alphabet = alphabet;
+		bits = KGramCounter.bitsFor(alphabet.getCapacity());
+		// check that k letters fit in a key
+		if (bits * k > KGramCounter.KEY_BITS)
+			throw new IllegalArgumentException(k + "-grams of " + bits + "-bit letters do not fit in a key");
+		mask = (1L << (bits * k)) - 1;
+		this.sketch = sketch;
+		heavy = new LongCountMap(heavySize + 1);
+		heapKeys = new long[heavySize];
+		heapCounts = new long[heavySize];
+		heapErrors = new long[heavySize];
+		heapSize = 0;
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		// the key of the most recent letters, and how many letters it holds
+		long key = 0;
+		int held = 0;
+		// slide along the word, counting a gram once k letters are held
+		for (int i = off; i < off + len; ++i) {
+			key = ((key << bits) | indexFor(buf[i])) & mask;
+			if (++held >= k) count(key);
+		}
+	}
+	
+	/**
+	 * Counts all k-grams in a word
+	 * @param word the word to count
+	 */
+	public void addWord(char[] word) {
+		addWord(word, 0, word.length);
+	}
+	
+	/**
+	 * Counts one gram, moving it into the heavy table if it has become heavy enough
+	 * @param key the key of the gram
+	 */
+	private void count(long key) {
+		long estimate = sketch.add(key, 1);
+		int place = (int) heavy.get(key) - 1;
+		
+		// heavy grams are counted exactly from here on (and, being heavier, may sink below lighter ones)
+		if (place >= 0) {
+			++heapCounts[place];
+			siftDown(place);
+		}
+		// while there is room, any gram is heavy enough
+		else if (heapSize < heapKeys.length) {
+			setPlace(heapSize, key, estimate, entryError(estimate));
+			siftUp(heapSize++);
+		}
+		// otherwise it has to beat the lightest gram in the table, which it replaces
+		else if (estimate > heapCounts[0]) {
+			heavy.remove(heapKeys[0]);
+			setPlace(0, key, estimate, entryError(estimate));
+			siftDown(0);
+		}
+	}
+	
+	/**
+	 * Bounds how far an estimate is above the true count
+	 * @param estimate the sketch's estimate for a gram just counted
+	 * @return the most estimate can be too high by: all but the gram just counted, or the sketch's error
+	 * bound if that is smaller (which holds except with chance e^-depth)
+	 */
+	private long entryError(long estimate) {
+		return Math.min(estimate - 1, sketch.getError());
+	}
+	
+	/**
+	 * Puts a gram at a place in the heap
+	 * @param place the place in the heap
+	 * @param key the key of the gram
+	 * @param grams the count of the gram
+	 * @param error the most grams may be too high by
+	 */
+	private void setPlace(int place, long key, long grams, long error) {
+		heapKeys[place] = key;
+		heapCounts[place] = grams;
+		heapErrors[place] = error;
+		heavy.put(key, place + 1);
+	}
+	
+	/**
+	 * Moves a gram up the heap until its parent is no heavier
+	 * @param place the place of the gram
+	 */
+	private void siftUp(int place) {
+		long key = heapKeys[place];
+		long grams = heapCounts[place];
+		long error = heapErrors[place];
+		while (place > 0) {
+			int parent = (place - 1) >>> 1;
+			if (heapCounts[parent] <= grams) break;
+			setPlace(place, heapKeys[parent], heapCounts[parent], heapErrors[parent]);
+			place = parent;
+		}
+		setPlace(place, key, grams, error);
+	}
+	
+	/**
+	 * Moves a gram down the heap until its children are no lighter
+	 * @param place the place of the gram
+	 */
+	private void siftDown(int place) {
+		long key = heapKeys[place];
+		long grams = heapCounts[place];
+		long error = heapErrors[place];
+		for (int child = 2 * place + 1; child < heapSize; child = 2 * place + 1) {
+			// the lighter child
+			if (child + 1 < heapSize && heapCounts[child + 1] < heapCounts[child]) ++child;
+			if (heapCounts[child] >= grams) break;
+			setPlace(place, heapKeys[child], heapCounts[child], heapErrors[child]);
+			place = child;
+		}
+		setPlace(place, key, grams, error);
+	}
+	
+	/**
+	 * Gets the index of a letter, adding it to the Alphabet if it is new
+	 * @param letter the letter to look up
+	 * @return the index of the letter
+	 */
+	private int indexFor(char letter) {
+		int index = alphabet.add(letter);
+		if (index < 0)
+			throw new IllegalStateException("Too many distinct letters for " + bits + "-bit keys (at '"
+					+ letter + "')");
+		return index;
+	}
+	
+	public long pack(CharSequence gram) {
+		return KGramCounter.pack(gram, k, bits, alphabet);
+	}
+	
+	public String unpack(long key) {
+		return KGramCounter.unpack(key, k, bits, alphabet);
+	}
+	
+	/**
+	 * Gets the count of a packed gram
+	 * @param key the key of the gram
+	 * @return the heavy count if the gram is heavy, otherwise the sketch's estimate (never too low, and
+	 * too high by at most getError)
+	 */
+	public long getCount(long key) {
+		int place = (int) heavy.get(key) - 1;
+		return place >= 0 ? heapCounts[place] : sketch.estimate(key);
+	}
+	
+	/**
+	 * Bounds how accurate the count of a packed gram is
+	 * @param key the key of the gram
+	 * @return the most getCount can be above the true count: for a heavy gram, what its estimate could
+	 * have been too high by when it entered the table (0 if that estimate was exact)
+	 */
+	public long getError(long key) {
+		int place = (int) heavy.get(key) - 1;
+		return place >= 0 ? heapErrors[place] : Math.min(sketch.estimate(key), sketch.getError());
+	}
+	
+	/**
+	 * Shows every heavy gram to a Visitor, in no particular order
+	 * @param visitor the Visitor to show packed grams and their counts (upper bounds, see getError) to
+	 */
+	public void forEach(LongCountMap.Visitor visitor) {
+		for (int place = 0; place < heapSize; ++place) visitor.visit(heapKeys[place], heapCounts[place]);
+	}
+	
+	/**
+	 * Checks whether a gram is in the heavy table
+	 * @param key the key of the gram
+	 * @return true if the gram is in the heavy table (counted exactly since it entered)
+	 */
+	public boolean isHeavy(long key) {
+		return heavy.containsKey(key);
+	}
+	
+	/**
+	 * Getter for this.k
+	 * @return the # of letters in each counted gram
+	 */
+	public int getK() {return k;}
+	
+	/**
+	 * Getter for this.bits
+	 * @return the # of bits each letter takes up in a key
+	 */
+	public int getBits() {return bits;}
+	
+	/**
+	 * Gets the numbering of letters
+	 * @return a copy of the Alphabet keys are packed with
+	 */
+	public Alphabet getAlphabet() {return alphabet.copy();}
+	
+	/**
+	 * Getter for this.sketch
+	 * @return the sketch every gram is counted in
+	 */
+	public CountMinSketch getSketch() {return sketch;}
+	
+	/**
+	 * Gets the # of heavy grams
+	 * @return the # of grams counted exactly
+	 */
+	public int getDistinct() {return heapSize;}
+}
\ No newline at end of file
@@ -0,0 +1,246 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.Arrays;
+
+/**
+ * Counts adjacencies between whole Unicode code points, so surrogate pairs are one letter
+ * <br>
+ * A dense matrix over all of Unicode is impossible, so counts are kept in two levels:
+ * <ul>
+ * 	<li>dense TILE x TILE tiles for pairs of blocks which are adjacent often (hot scripts)</li>
+ * 	<li>a LongCountMap for everything else (the long tail)</li>
+ * </ul>
+ * A pair of blocks gets a tile once PROMOTE adjacencies have been counted between them, so memory
+ * stays proportional to the scripts which actually appear together
+ * @author faith
+ */
+public class CodePointAdjCounter implements WordSink {
+	/**
+	 * the dense tiles, in the order they were made
+	 */
+	private long[][] tiles;
+	/**
+	 * the # of dense tiles
+	 */
+	private int tileCount;
+	/**
+	 * the index in tiles of each promoted pair of blocks, by tile key
+	 */
+	private final LongCountMap tileIndex;
+	/**
+	 * the # of adjacencies counted between each not-yet-promoted pair of blocks, by tile key
+	 */
+	private final LongCountMap tileHits;
+	/**
+	 * the counts of pairs not in a tile, by pair key
+	 */
+	private final LongCountMap tail;
+	/**
+	 * the tile key of the tile used last (most words stay in one script, so this usually hits)
+	 */
+	private long lastKey;
+	/**
+	 * the tile used last
+	 */
+	private long[] lastTile;
+	
+	/**
+	 * the # of bits of a code point used to index within a tile
+	 */
+	public static final int TILE_BITS = 6;
+	/**
+	 * the side length of a tile
+	 */
+	public static final int TILE = 1 << TILE_BITS;
+	/**
+	 * the # of adjacencies between two blocks before they get a tile
+	 */
+	public static final int PROMOTE = 1024;
+	/**
+	 * the # of bits in a code point
+	 */
+	private static final int POINT_BITS = 21;
+	/**
+	 * the # of bits in a block #
+	 */
+	private static final int BLOCK_BITS = POINT_BITS - TILE_BITS;
+	
+	/**
+	 * Something which can be shown every counted pair
+	 * @author faith
+	 */
+	public interface Visitor {
+		/**
+		 * Looks at a single pair
+		 * @param from the first code point
+		 * @param to the second code point
+		 * @param count the # of times they were adjacent
+		 */
+		void visit(int from, int to, long count);
+	}
+	
+	/**
+	 * Initializes a counter with no counts
+	 */
+	public CodePointAdjCounter() {
+		tiles = new long[4][];
+		tileCount = 0;
+		tileIndex = new LongCountMap();
+		tileHits = new LongCountMap();
+		tail = new LongCountMap();
+		lastKey = -1;
+		lastTile = null;
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		int end = off + len;
+		if (len < 2) return;
+		
+		// slide along the word a whole code point at a time
+		int prev = Character.codePointAt(buf, off, end);
+		for (int i = off + Character.charCount(prev); i < end; ) {
+			int cur = Character.codePointAt(buf, i, end);
+			i += Character.charCount(cur);
+			add(prev, cur);
+			// a code point next to itself is only one adjacency
+			if (prev != cur) add(cur, prev);
+			prev = cur;
+		}
+	}
+	
+	/**
+	 * Counts a word
+	 * @param word the word to count
+	 */
+	public void addWord(String word) {
+		addWord(word.toCharArray(), 0, word.length());
+	}
+	
+	/**
+	 * Counts one adjacency in one direction
+	 * @param from the first code point
+	 * @param to the second code point
+	 */
+	private void add(int from, int to) {
+		long key = tileKey(from, to);
+		long[] tile = tileFor(key);
+		
+		// if the blocks have a tile, just count there
+		if (tile != null) ++tile[offset(from, to)];
+		// otherwise count in the tail, and promote the blocks if they have become hot
+		else {
+			tail.add(pairKey(from, to), 1);
+			if (tileHits.add(key, 1) >= PROMOTE) promote(key, from, to);
+		}
+	}
+	
+	/**
+	 * Moves all tail counts between two blocks into a new dense tile
+	 * @param key the tile key of the blocks
+	 * @param from a code point of the first block
+	 * @param to a code point of the second block
+	 */
+	private void promote(long key, int from, int to) {
+		long[] tile = new long[TILE * TILE];
+		// move every pair of the two blocks over from the tail
+		int fromBase = from & ~(TILE - 1);
+		int toBase = to & ~(TILE - 1);
+		for (int i = 0; i < TILE; ++i) for (int j = 0; j < TILE; ++j)
+			tile[i * TILE + j] = tail.remove(pairKey(fromBase + i, toBase + j));
+		
+		// register the tile
+		if (tileCount == tiles.length) tiles = Arrays.copyOf(tiles, tileCount * 2);
+		tiles[tileCount] = tile;
+		tileIndex.put(key, tileCount++);
+		tileHits.remove(key);
+		lastKey = key;
+		lastTile = tile;
+	}
+	
+	/**
+	 * Finds the dense tile for a pair of blocks
+	 * @param key the tile key of the blocks
+	 * @return the tile, or null if the blocks have not been promoted
+	 */
+	private long[] tileFor(long key) {
+		if (key == lastKey) return lastTile;
+		if (!tileIndex.containsKey(key)) return null;
+		lastKey = key;
+		lastTile = tiles[(int) tileIndex.get(key)];
+		return lastTile;
+	}
+	
+	/**
+	 * Gets the # of times two code points were adjacent
+	 * @param from the first code point
+	 * @param to the second code point
+	 * @return the adjacency count
+	 */
+	public long getCount(int from, int to) {
+		if (!Character.isValidCodePoint(from) || !Character.isValidCodePoint(to)) return 0;
+		long key = tileKey(from, to);
+		if (tileIndex.containsKey(key)) return tiles[(int) tileIndex.get(key)][offset(from, to)];
+		return tail.get(pairKey(from, to));
+	}
+	
+	/**
+	 * Shows every counted pair to a Visitor, in no particular order
+	 * @param visitor the Visitor to show pairs to
+	 */
+	public void forEach(Visitor visitor) {
+		// first the tail
+		tail.forEach((key, count) -> visitor.visit((int) (key >>> POINT_BITS),
+				(int) (key & ((1 << POINT_BITS) - 1)), count));
+		// then each tile's non-zero counts
+		tileIndex.forEach((key, index) -> {
+			int fromBase = (int) (key >>> BLOCK_BITS) << TILE_BITS;
+			int toBase = (int) (key & ((1 << BLOCK_BITS) - 1)) << TILE_BITS;
+			long[] tile = tiles[(int) index];
+			for (int i = 0; i < tile.length; ++i) if (tile[i] != 0)
+				visitor.visit(fromBase + i / TILE, toBase + i % TILE, tile[i]);
+		});
+	}
+	
+	/**
+	 * Gets the # of dense tiles
+	 * @return the # of pairs of blocks hot enough to have been promoted
+	 */
+	public int getTileCount() {return tileCount;}
+	
+	/**
+	 * Gets the # of pairs kept in the tail
+	 * @return the # of distinct pairs not in a tile
+	 */
+	public int getTailSize() {return tail.getSize();}
+	
+	/**
+	 * Packs two code points into a pair key
+	 * @param from the first code point
+	 * @param to the second code point
+	 * @return the key, with from in the upper bits
+	 */
+	private static long pairKey(int from, int to) {
+		return ((long) from << POINT_BITS) | to;
+	}
+	
+	/**
+	 * Packs the blocks of two code points into a tile key
+	 * @param from the first code point
+	 * @param to the second code point
+	 * @return the key, with from's block in the upper bits
+	 */
+	private static long tileKey(int from, int to) {
+		return ((long) (from >>> TILE_BITS) << BLOCK_BITS) | (to >>> TILE_BITS);
+	}
+	
+	/**
+	 * Finds a pair within its tile
+	 * @param from the first code point
+	 * @param to the second code point
+	 * @return the index of the pair in its tile
+	 */
+	private static int offset(int from, int to) {
+		return (from & (TILE - 1)) * TILE + (to & (TILE - 1));
+	}
+}
\ No newline at end of file
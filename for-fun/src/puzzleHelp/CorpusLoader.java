@@ -0,0 +1,208 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// for running reads concurrently
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// for finding and reading files
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a corpus split over many word files, several files at once
+ * <br>
+ * A corpus is named by a single file, a directory (every file directly in it), or a glob such as
+ * "lists/*.txt.gz"; files ending in ".gz" are decompressed as they are read, and the rest are
+ * memory-mapped
+ * <br>
+ * Each thread sends words to its own sink, so nothing is shared while reading, and the sinks are
+ * only combined once every file is done
+ * @author faith
+ */
+public class CorpusLoader {
+	/**
+	 * the # of bytes buffered when decompressing
+	 */
+	public static final int GZIP_BUFFER = 1 << 16;
+	
+	/**
+	 * No instances, just static methods
+	 */
+	private CorpusLoader() {}
+	
+	/**
+	 * Finds the files of a corpus
+	 * @param corpus a file, directory, or glob
+	 * @return every matching regular file, sorted
+	 * @throws IOException if a directory cannot be listed
+	 */
+	public static List<Path> find(String corpus) throws IOException {
+		// without glob characters, it is just a file or directory
+		int glob = indexOfGlob(corpus);
+		if (glob < 0) {
+			Path path = Paths.get(corpus);
+			if (!Files.isDirectory(path)) return List.of(path);
+			try (Stream<Path> files = Files.list(path)) {
+				return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+			}
+		}
+		
+		// otherwise walk from the last directory before the first glob character
+		int slash = Math.max(corpus.lastIndexOf('/', glob), corpus.lastIndexOf(File.separatorChar, glob));
+		Path base = Paths.get(slash < 0 ? "." : corpus.substring(0, slash + 1));
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + corpus.substring(slash + 1));
+		try (Stream<Path> files = Files.walk(base)) {
+			return files.filter(file -> Files.isRegularFile(file) && matcher.matches(base.relativize(file)))
+					.sorted().collect(Collectors.toList());
+		}
+	}
+	
+	/**
+	 * Finds the first glob character in a corpus name
+	 * @param corpus a file, directory, or glob
+	 * @return the index of the first glob character, or -1 if there are none
+	 */
+	private static int indexOfGlob(String corpus) {
+		for (int i = 0; i < corpus.length(); ++i) {
+			char c = corpus.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Counts letter adjacencies of a corpus, using every processor
+	 * @param corpus a file, directory, or glob
+	 * @param mode how pairs are counted
+	 * @return the completed letter-count matrix
+	 * @throws IOException if a file cannot be found or read
+	 */
+	public static AdjMatrix count(String corpus, AdjMatrix.Mode mode) throws IOException {
+		return count(find(corpus), mode, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Counts letter adjacencies of some files
+	 * @param files the UTF-8 (or gzipped UTF-8) word files to read
+	 * @param mode how pairs are counted
+	 * @param threads the most files to read at once
+	 * @return the completed letter-count matrix
+	 * @throws IOException if a file cannot be read
+	 */
+	public static AdjMatrix count(List<Path> files, AdjMatrix.Mode mode, int threads) throws IOException {
+		AdjMatrix total = new AdjMatrix(mode);
+		for (AdjMatrix part : read(files, () -> new AdjMatrix(mode), threads)) total.merge(part);
+		return total;
+	}
+	
+	/**
+	 * Reads some files concurrently, each thread sending its words to its own sink
+	 * @param <S> the type of sink
+	 * @param files the UTF-8 (or gzipped UTF-8) word files to read
+	 * @param sinks makes a new sink for each reading thread
+	 * @param threads the most files to read at once
+	 * @return every sink made, for combining
+	 * @throws IOException if a file cannot be read
+	 */
+	public static <S extends WordSink> List<S> read(List<Path> files, Supplier<S> sinks, int threads)
+			throws IOException {
+		return read(files, sinks, threads, bytes -> {});
+	}
+	
+	/**
+	 * Reads some files concurrently, each thread sending its words to its own sink, and reporting
+	 * bytes as they are read
+	 * @param <S> the type of sink
+	 * @param files the UTF-8 (or gzipped UTF-8) word files to read
+	 * @param sinks makes a new sink for each reading thread
+	 * @param threads the most files to read at once
+	 * @param progress told the # of bytes read every so often, from every reading thread
+	 * @return every sink made, for combining
+	 * @throws IOException if a file cannot be read
+	 */
+	public static <S extends WordSink> List<S> read(List<Path> files, Supplier<S> sinks, int threads,
+			LongConsumer progress) throws IOException {
+		if (threads <= 0) throw new IllegalArgumentException("Invalid # of threads: " + threads);
+		
+		// each thread makes (and registers) its own sink the first time it reads
+		Queue<S> made = new ConcurrentLinkedQueue<S>();
+		ThreadLocal<S> sink = ThreadLocal.withInitial(() -> {
+			S mine = sinks.get();
+			made.add(mine);
+			return mine;
+		});
+		
+		// one task per file, no more running at once than there are threads
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())));
+		try {
+			List<Future<?>> tasks = new ArrayList<Future<?>>(files.size());
+			for (Path file : files) tasks.add(pool.submit(() -> {
+				readFile(file, sink.get(), progress);
+				return null;
+			}));
+			// wait for every file, passing on the first failure
+			for (Future<?> task : tasks) task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading corpus", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IOException("Failed to read corpus", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		
+		return new ArrayList<S>(made);
+	}
+	
+	/**
+	 * Reads every word of a file, decompressing it if it is gzipped
+	 * @param file the UTF-8 (or gzipped UTF-8, if its name ends in ".gz") file to read
+	 * @param sink where to send words
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void readFile(Path file, WordSink sink) throws IOException {
+		readFile(file, sink, bytes -> {});
+	}
+	
+	/**
+	 * Reads every word of a file, decompressing it if it is gzipped, and reporting bytes as they are read
+	 * @param file the UTF-8 (or gzipped UTF-8, if its name ends in ".gz") file to read
+	 * @param sink where to send words
+	 * @param progress told the # of (decompressed) bytes read every so often
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void readFile(Path file, WordSink sink, LongConsumer progress) throws IOException {
+		if (file.getFileName().toString().endsWith(".gz")) {
+			try (InputStream in = new GZIPInputStream(Files.newInputStream(file), GZIP_BUFFER)) {
+				WordReader.read(in, sink, progress);
+			}
+		}
+		else WordReader.read(file, sink, progress);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package puzzleHelp;
+
+// for clearing the table
+import java.util.Arrays;
+
+/**
+ * Approximately counts non-negative long keys in a fixed amount of memory
+ * <br>
+ * Each key is counted in one cell of each of depth rows of width cells, and its estimate is the
+ * smallest of those cells, so an estimate is never too low, and is at most epsilon * getTotal()
+ * too high (epsilon = e / width) except with probability delta = e^-depth
+ * <br>
+ * With conservative update, a count only raises the cells which are below the new estimate,
+ * which makes estimates tighter but means counts can no longer be removed or sketches merged
+ * @author faith
+ */
+public class CountMinSketch {
+	/**
+	 * the cells, row by row
+	 */
+	private final long[] table;
+	/**
+	 * the # of cells in each row, a power of two
+	 */
+	private final int width;
+	/**
+	 * the # of rows
+	 */
+	private final int depth;
+	/**
+	 * whether only the smallest cells are raised when counting
+	 */
+	private final boolean conservative;
+	/**
+	 * the sum of all counts added
+	 */
+	private long total;
+	
+	/**
+	 * the most cells a sketch can have
+	 */
+	public static final int MAX_CELLS = 1 << 30;
+	
+	/**
+	 * Initializes an empty sketch
+	 * @param width the # of cells in each row (rounded up to a power of two)
+	 * @param depth the # of rows
+	 * @param conservative whether only the smallest cells are raised when counting
+	 */
+	public CountMinSketch(int width, int depth, boolean conservative) {
+		// check for argument validity
+		if (width <= 0 || depth <= 0 || width > MAX_CELLS
+				|| (long) (Integer.highestOneBit(width - 1) << 1) * depth > MAX_CELLS)
+			throw new IllegalArgumentException("Invalid sketch size: " + width + " x " + depth);
+		
+		this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+		this.depth = depth;
+		this.conservative = conservative;
+		table = new long[this.width * depth];
+		total = 0;
+	}
+	
+	/**
+	 * Makes a sketch with some error bounds
+	 * @param epsilon the most an estimate may be too high by, as a fraction of the total count
+	 * @param delta the chance of an estimate being further off than that
+	 * @param conservative whether only the smallest cells are raised when counting
+	 * @return the smallest sketch with those bounds
+	 */
+	public static CountMinSketch withError(double epsilon, double delta, boolean conservative) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1))
+			throw new IllegalArgumentException("Invalid error bounds: " + epsilon + ", " + delta);
+		return new CountMinSketch((int) Math.min(MAX_CELLS, Math.ceil(Math.E / epsilon)), depthFor(delta),
+				conservative);
+	}
+	
+	/**
+	 * Makes a sketch fitting in a memory budget
+	 * @param bytes the most bytes the cells may take up
+	 * @param delta the chance of an estimate being further off than the error bound
+	 * @param conservative whether only the smallest cells are raised when counting
+	 * @return the widest sketch of the needed depth which fits in bytes
+	 */
+	public static CountMinSketch withMemory(long bytes, double delta, boolean conservative) {
+		if (!(delta > 0 && delta < 1))
+			throw new IllegalArgumentException("Invalid error bound: " + delta);
+		int depth = depthFor(delta);
+		// the widest power of two which fits (widths are rounded up, so round down here first)
+		long cells = Math.min(MAX_CELLS, bytes / 8 / depth);
+		if (cells <= 0) throw new IllegalArgumentException("Budget of " + bytes + " bytes is too small");
+		return new CountMinSketch((int) Long.highestOneBit(cells), depth, conservative);
+	}
+	
+	/**
+	 * Calculates the # of rows needed for a failure chance
+	 * @param delta the chance of an estimate being further off than the error bound
+	 * @return the # of rows
+	 */
+	private static int depthFor(double delta) {
+		return Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+	}
+	
+	/**
+	 * Counts a key some # of times
+	 * @param key the key to count
+	 * @param delta the # of times to count it (negative only without conservative update)
+	 * @return the new estimate for the key
+	 */
+	public long add(long key, long delta) {
+		if (conservative && delta < 0)
+			throw new IllegalArgumentException("Cannot remove counts from a conservative sketch");
+		total += delta;
+		
+		// two hashes of the key, combined to pick a cell in each row
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		
+		if (!conservative) {
+			// raise every cell, keeping the smallest
+			long min = Long.MAX_VALUE;
+			for (int row = 0; row < depth; ++row) {
+				int cell = row * width + ((h1 + row * h2) & (width - 1));
+				min = Math.min(min, table[cell] += delta);
+			}
+			return min;
+		}
+		
+		// find the current estimate
+		long min = Long.MAX_VALUE;
+		for (int row = 0; row < depth; ++row)
+			min = Math.min(min, table[row * width + ((h1 + row * h2) & (width - 1))]);
+		// then only raise cells which would be below the new estimate
+		long estimate = min + delta;
+		for (int row = 0; row < depth; ++row) {
+			int cell = row * width + ((h1 + row * h2) & (width - 1));
+			if (table[cell] < estimate) table[cell] = estimate;
+		}
+		return estimate;
+	}
+	
+	/**
+	 * Estimates the count of a key
+	 * @param key the key to look up
+	 * @return at least the # of times key was counted
+	 */
+	public long estimate(long key) {
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		
+		long min = Long.MAX_VALUE;
+		for (int row = 0; row < depth; ++row)
+			min = Math.min(min, table[row * width + ((h1 + row * h2) & (width - 1))]);
+		return min;
+	}
+	
+	/**
+	 * Adds all counts from another sketch of the same shape into this one
+	 * @param other the sketch to merge in
+	 */
+	public void merge(CountMinSketch other) {
+		// check for argument validity
+		if (conservative || other.conservative)
+			throw new IllegalArgumentException("Conservative sketches cannot be merged");
+		if (width != other.width || depth != other.depth)
+			throw new IllegalArgumentException("Sketches are different sizes: " + width + " x " + depth
+					+ ", " + other.width + " x " + other.depth);
+		
+		for (int i = 0; i < table.length; ++i) table[i] += other.table[i];
+		total += other.total;
+	}
+	
+	/**
+	 * Clears all counts
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+		total = 0;
+	}
+	
+	/**
+	 * Scrambles a key so that its bits are spread evenly (the MurmurHash3 finalizer)
+	 * @param key the key to scramble
+	 * @return the hash of the key
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		key *= 0xC4CEB9FE1A85EC53L;
+		return key ^ (key >>> 33);
+	}
+	
+	/**
+	 * Getter for this.width
+	 * @return the # of cells in each row
+	 */
+	public int getWidth() {return width;}
+	
+	/**
+	 * Getter for this.depth
+	 * @return the # of rows
+	 */
+	public int getDepth() {return depth;}
+	
+	/**
+	 * Getter for this.conservative
+	 * @return whether only the smallest cells are raised when counting
+	 */
+	public boolean isConservative() {return conservative;}
+	
+	/**
+	 * Getter for this.total
+	 * @return the sum of all counts added
+	 */
+	public long getTotal() {return total;}
+	
+	/**
+	 * Gets the error bound of estimates
+	 * @return the most an estimate should be too high by (except with chance e^-depth)
+	 */
+	public long getError() {return (long) Math.ceil(Math.E / width * total);}
+	
+	/**
+	 * Gets the memory the cells take up
+	 * @return the # of bytes in the table
+	 */
+	public long getBytes() {return 8L * table.length;}
+}
\ No newline at end of file
@@ -0,0 +1,644 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// for building from a word file
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A dictionary stored as a minimal acyclic automaton (DAWG), where words sharing an ending also
+ * share the nodes for it, so it is usually far smaller than a plain trie
+ * <br>
+ * Everything is kept in primitive arrays: the edges of node n are edges first[n] to first[n + 1] - 1,
+ * sorted by label, and each node also records which word lengths can still be finished from it,
+ * so pattern searches skip whole branches which are too short or too long
+ * <br>
+ * Words are also numbered 0 to getWordCount() - 1 in sorted order, by adding up getSkip along the
+ * edges of a word's path, so a word can be stood for by its number (see wordAt)
+ * <br>
+ * Built with Daciuk's incremental algorithm from words in sorted order (see Builder), which only
+ * ever holds the current word's path outside the finished arrays
+ * @author faith
+ */
+public class Dawg {
+	/**
+	 * the index of each node's first edge (with an extra entry for the end of the last node)
+	 */
+	private final int[] first;
+	/**
+	 * the letter of each edge
+	 */
+	private final char[] labels;
+	/**
+	 * the node each edge leads to
+	 */
+	private final int[] targets;
+	/**
+	 * the # of words from each edge's node which sort before the words through that edge
+	 */
+	private final int[] skips;
+	/**
+	 * whether a word ends at each node
+	 */
+	private final boolean[] finals;
+	/**
+	 * the word lengths which can be finished from each node, as bits (lengths of 63+ share bit 63)
+	 */
+	private final long[] lengths;
+	/**
+	 * the node where every word starts
+	 */
+	private final int root;
+	/**
+	 * the # of words
+	 */
+	private final int words;
+	
+	/**
+	 * the letter matching any letter in a pattern
+	 */
+	public static final char WILDCARD = '?';
+	
+	/**
+	 * Initializes a DAWG from finished arrays
+	 * @param first the index of each node's first edge, plus the end of the last node
+	 * @param labels the letter of each edge
+	 * @param targets the node each edge leads to
+	 * @param skips the # of words from each edge's node which sort before the words through that edge
+	 * @param finals whether a word ends at each node
+	 * @param lengths the word lengths which can be finished from each node
+	 * @param root the node where every word starts
+	 * @param words the # of words
+	 */
+	private Dawg(int[] first, char[] labels, int[] targets, int[] skips, boolean[] finals, long[] lengths,
+			int root, int words) {
+		this.first = first;
+		this.labels = labels;
+		this.targets = targets;
+		this.skips = skips;
+		this.finals = finals;
+		this.lengths = lengths;
+		this.root = root;
+		this.words = words;
+	}
+	
+	/**
+	 * Builds a DAWG from a word file which is already sorted
+	 * @param file the UTF-8 file to read, with words in sorted (String.compareTo) order
+	 * @return the DAWG of every word in the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Dawg build(Path file) throws IOException {
+		Builder builder = new Builder();
+		WordReader.read(file, builder);
+		return builder.build();
+	}
+	
+	/**
+	 * Builds a DAWG from words in any order
+	 * @param words the words to include
+	 * @return the DAWG of every word
+	 */
+	public static Dawg of(Collection<String> words) {
+		String[] sorted = words.toArray(new String[0]);
+		Arrays.sort(sorted);
+		Builder builder = new Builder();
+		for (String word : sorted) builder.addWord(word.toCharArray(), 0, word.length());
+		return builder.build();
+	}
+	
+	/**
+	 * Checks whether a word is in the dictionary
+	 * @param word the word to look up
+	 * @return true if word was added
+	 */
+	public boolean contains(CharSequence word) {
+		int node = root;
+		for (int i = 0; i < word.length() && node >= 0; ++i) node = child(node, word.charAt(i));
+		return node >= 0 && finals[node];
+	}
+	
+	/**
+	 * Finds every word matching a pattern
+	 * @param pattern the letters of the words, with WILDCARD for any letter
+	 * @return the matching words, in sorted order
+	 */
+	public List<String> match(CharSequence pattern) {
+		List<String> found = new ArrayList<String>();
+		match(pattern, (buf, off, len) -> found.add(new String(buf, off, len)));
+		return found;
+	}
+	
+	/**
+	 * Finds every word matching a pattern, without making a String for each
+	 * @param pattern the letters of the words, with WILDCARD for any letter
+	 * @param sink where to send matching words, in sorted order (the buffer is reused)
+	 */
+	public void match(CharSequence pattern, WordSink sink) {
+		match(root, pattern, 0, new char[pattern.length()], sink);
+	}
+	
+	/**
+	 * Finds every ending of a pattern reachable from a node
+	 * @param node the node reached so far
+	 * @param pattern the letters of the words, with WILDCARD for any letter
+	 * @param at the # of letters of the pattern matched so far
+	 * @param word the letters matched so far
+	 * @param sink where to send matching words
+	 */
+	private void match(int node, CharSequence pattern, int at, char[] word, WordSink sink) {
+		// skip nodes which cannot finish a word of the right length
+		if (!canFinish(node, pattern.length() - at)) return;
+		if (at == pattern.length()) {
+			sink.addWord(word, 0, at);
+			return;
+		}
+		
+		// a wildcard tries every edge, and a letter only its own
+		char letter = pattern.charAt(at);
+		if (letter == WILDCARD) for (int edge = first[node]; edge < first[node + 1]; ++edge) {
+			word[at] = labels[edge];
+			match(targets[edge], pattern, at + 1, word, sink);
+		}
+		else {
+			int next = child(node, letter);
+			if (next < 0) return;
+			word[at] = letter;
+			match(next, pattern, at + 1, word, sink);
+		}
+	}
+	
+	/**
+	 * Follows an edge
+	 * @param node the node to leave
+	 * @param letter the letter of the edge
+	 * @return the node the edge leads to, or -1 if node has no such edge
+	 */
+	public int child(int node, char letter) {
+		int edge = edge(node, letter);
+		return edge < 0 ? -1 : targets[edge];
+	}
+	
+	/**
+	 * Finds an edge
+	 * @param node the node to leave
+	 * @param letter the letter of the edge
+	 * @return the index of the edge, or -1 if node has no such edge
+	 */
+	public int edge(int node, char letter) {
+		// the edges are sorted, so binary search them
+		int low = first[node];
+		int high = first[node + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (labels[mid] < letter) low = mid + 1;
+			else if (labels[mid] > letter) high = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Gets the number of a word
+	 * @param word the word to look up
+	 * @return the word's position among all words in sorted order, or -1 if it is not a word
+	 */
+	public int indexOf(CharSequence word) {
+		int node = root;
+		int index = 0;
+		// add up the words skipped over by each edge taken
+		for (int i = 0; i < word.length(); ++i) {
+			int edge = edge(node, word.charAt(i));
+			if (edge < 0) return -1;
+			index += skips[edge];
+			node = targets[edge];
+		}
+		return finals[node] ? index : -1;
+	}
+	
+	/**
+	 * Gets a word by its number
+	 * @param index the word's position among all words in sorted order
+	 * @return the word
+	 */
+	public String wordAt(int index) {
+		if (index < 0 || index >= words) throw new IndexOutOfBoundsException("Invalid word index: " + index);
+		
+		StringBuilder word = new StringBuilder();
+		int node = root;
+		// until the word ending here is the one wanted, take the last edge not skipping past it
+		while (index > 0 || !finals[node]) {
+			int edge = first[node];
+			while (edge + 1 < first[node + 1] && skips[edge + 1] <= index) ++edge;
+			word.append(labels[edge]);
+			index -= skips[edge];
+			node = targets[edge];
+		}
+		return word.toString();
+	}
+	
+	/**
+	 * Checks whether a word of some length can be finished from a node
+	 * @param node the node to check
+	 * @param remaining the # of letters still to come
+	 * @return true if some word ends exactly remaining letters after node (past 62, only whether some
+	 * word ends 63 or more letters after it, so a true answer there may be wrong but false never is)
+	 */
+	public boolean canFinish(int node, int remaining) {
+		return (lengths[node] & (1L << Math.min(remaining, 63))) != 0;
+	}
+	
+	/**
+	 * Checks whether a word ends at a node
+	 * @param node the node to check
+	 * @return true if the letters leading to node are a word
+	 */
+	public boolean isFinal(int node) {return finals[node];}
+	
+	/**
+	 * Gets the first edge of a node
+	 * @param node the node to look at
+	 * @return the index of its first edge
+	 */
+	public int getFirstEdge(int node) {return first[node];}
+	
+	/**
+	 * Gets the end of a node's edges
+	 * @param node the node to look at
+	 * @return the index after its last edge
+	 */
+	public int getEdgeEnd(int node) {return first[node + 1];}
+	
+	/**
+	 * Gets the letter of an edge
+	 * @param edge the index of the edge
+	 * @return the letter the edge is labelled with
+	 */
+	public char getLabel(int edge) {return labels[edge];}
+	
+	/**
+	 * Gets where an edge leads
+	 * @param edge the index of the edge
+	 * @return the node the edge leads to
+	 */
+	public int getTarget(int edge) {return targets[edge];}
+	
+	/**
+	 * Gets the # of words an edge skips over
+	 * @param edge the index of the edge
+	 * @return the # of words from its node which sort before the words through it
+	 */
+	public int getSkip(int edge) {return skips[edge];}
+	
+	/**
+	 * Getter for this.root
+	 * @return the node where every word starts
+	 */
+	public int getRoot() {return root;}
+	
+	/**
+	 * Getter for this.words
+	 * @return the # of words
+	 */
+	public int getWordCount() {return words;}
+	
+	/**
+	 * Gets the # of nodes
+	 * @return the # of nodes in the automaton
+	 */
+	public int getNodeCount() {return finals.length;}
+	
+	/**
+	 * Gets the # of edges
+	 * @return the # of edges in the automaton
+	 */
+	public int getEdgeCount() {return labels.length;}
+	
+	/**
+	 * Builds a Dawg from words given in sorted order, merging equivalent nodes as it goes
+	 * <br>
+	 * Only the nodes along the latest word are still open; once a word moves on from a node, that
+	 * node is either replaced by an identical finished node or finished itself, and finished nodes
+	 * go straight into the arrays the Dawg is made of
+	 * @author faith
+	 */
+	public static class Builder implements WordSink {
+		/**
+		 * the index of each finished node's first edge
+		 */
+		private int[] first;
+		/**
+		 * whether a word ends at each finished node
+		 */
+		private boolean[] finals;
+		/**
+		 * the word lengths which can be finished from each finished node
+		 */
+		private long[] lengths;
+		/**
+		 * the # of words which can be finished from each finished node
+		 */
+		private int[] counts;
+		/**
+		 * the # of finished nodes
+		 */
+		private int nodes;
+		/**
+		 * the letter of each finished edge
+		 */
+		private char[] labels;
+		/**
+		 * the node each finished edge leads to
+		 */
+		private int[] targets;
+		/**
+		 * the # of words from each finished edge's node which sort before the words through it
+		 */
+		private int[] skips;
+		/**
+		 * the # of finished edges
+		 */
+		private int edges;
+		/**
+		 * the finished nodes by contents, as node + 1 (0 for an empty slot), for finding duplicates
+		 */
+		private int[] register;
+		
+		/**
+		 * the latest word
+		 */
+		private char[] word;
+		/**
+		 * the # of letters in the latest word
+		 */
+		private int len;
+		/**
+		 * the letters of the edges of each open node (the node at depth d holds its edges in openLabels[d])
+		 */
+		private char[][] openLabels;
+		/**
+		 * the targets of the edges of each open node (its last edge leads to the next open node, until
+		 * that is finished)
+		 */
+		private int[][] openTargets;
+		/**
+		 * the # of edges of each open node
+		 */
+		private int[] openEdges;
+		/**
+		 * whether a word ends at each open node
+		 */
+		private boolean[] openFinals;
+		/**
+		 * the # of words added
+		 */
+		private int words;
+		/**
+		 * whether build has been called
+		 */
+		private boolean built;
+		
+		/**
+		 * Initializes a builder with no words
+		 */
+		public Builder() {
+			first = new int[1024];
+			finals = new boolean[1024];
+			lengths = new long[1024];
+			counts = new int[1024];
+			nodes = 0;
+			labels = new char[1024];
+			targets = new int[1024];
+			skips = new int[1024];
+			edges = 0;
+			register = new int[2048];
+			
+			word = new char[64];
+			len = 0;
+			openLabels = new char[65][];
+			openTargets = new int[65][];
+			openEdges = new int[65];
+			openFinals = new boolean[65];
+			openLabels[0] = new char[4];
+			openTargets[0] = new int[4];
+			words = 0;
+			built = false;
+		}
+		
+		/**
+		 * Adds a word, which must not come before any word already added
+		 * @param buf the array containing the word
+		 * @param off the index of the first letter of the word
+		 * @param len the # of letters in the word
+		 */
+		public void addWord(char[] buf, int off, int len) {
+			if (built) throw new IllegalStateException("Dawg has already been built");
+			
+			// find how much of the latest word this one shares, and check the order
+			int shared = 0;
+			while (shared < len && shared < this.len && buf[off + shared] == word[shared]) ++shared;
+			if (shared == len && shared == this.len && words > 0) return;
+			boolean before = shared < len && shared < this.len ? buf[off + shared] < word[shared] : shared == len;
+			if (before && words > 0)
+				throw new IllegalArgumentException("Words out of order: \"" + new String(buf, off, len)
+						+ "\" after \"" + new String(word, 0, this.len) + "\"");
+			
+			// the rest of the latest word can never change again
+			close(shared);
+			
+			// open nodes for the rest of this word
+			ensureDepth(len);
+			for (int i = shared; i < len; ++i) {
+				addOpenEdge(i, buf[off + i]);
+				openEdges[i + 1] = 0;
+				openFinals[i + 1] = false;
+				word[i] = buf[off + i];
+			}
+			openFinals[len] = true;
+			this.len = len;
+			++words;
+		}
+		
+		/**
+		 * Finishes the dictionary
+		 * @return the Dawg of every word added
+		 */
+		public Dawg build() {
+			if (built) throw new IllegalStateException("Dawg has already been built");
+			built = true;
+			
+			// finish every open node, down to the root
+			close(0);
+			int root = finish(0);
+			
+			first[nodes] = edges;
+			return new Dawg(Arrays.copyOf(first, nodes + 1), Arrays.copyOf(labels, edges),
+					Arrays.copyOf(targets, edges), Arrays.copyOf(skips, edges), Arrays.copyOf(finals, nodes),
+					Arrays.copyOf(lengths, nodes), root, words);
+		}
+		
+		/**
+		 * Finishes the open nodes deeper than some depth
+		 * @param depth the depth of the deepest node to keep open
+		 */
+		private void close(int depth) {
+			for (int d = len; d > depth; --d) openTargets[d - 1][openEdges[d - 1] - 1] = finish(d);
+			len = Math.min(len, depth);
+		}
+		
+		/**
+		 * Finishes an open node, reusing an identical finished node if there is one
+		 * @param depth the depth of the open node
+		 * @return the finished node
+		 */
+		private int finish(int depth) {
+			int count = openEdges[depth];
+			char[] letters = openLabels[depth];
+			int[] to = openTargets[depth];
+			boolean end = openFinals[depth];
+			
+			// look for an identical node
+			int mask = register.length - 1;
+			int slot = hash(letters, to, count, end) & mask;
+			for (; register[slot] != 0; slot = (slot + 1) & mask) {
+				int node = register[slot] - 1;
+				if (same(node, letters, to, count, end)) return node;
+			}
+			
+			// there isn't one, so add this node
+			int node = nodes;
+			if (nodes + 2 > first.length) {
+				first = Arrays.copyOf(first, first.length * 2);
+				finals = Arrays.copyOf(finals, first.length);
+				lengths = Arrays.copyOf(lengths, first.length);
+				counts = Arrays.copyOf(counts, first.length);
+			}
+			if (edges + count > labels.length) {
+				labels = Arrays.copyOf(labels, Math.max(labels.length * 2, edges + count));
+				targets = Arrays.copyOf(targets, labels.length);
+				skips = Arrays.copyOf(skips, labels.length);
+			}
+			first[node] = edges;
+			finals[node] = end;
+			long reach = end ? 1 : 0;
+			int below = end ? 1 : 0;
+			for (int i = 0; i < count; ++i) {
+				labels[edges] = letters[i];
+				// each edge skips the word ending here and every word through the edges before it
+				skips[edges] = below;
+				below += counts[to[i]];
+				targets[edges++] = to[i];
+				// one letter further, and anything past 63 stays at 63
+				long child = lengths[to[i]];
+				reach |= (child << 1) | (child >>> 63 << 63);
+			}
+			lengths[node] = reach;
+			counts[node] = below;
+			// a node's end is where the next node starts, even before the next node exists
+			first[node + 1] = edges;
+			++nodes;
+			
+			register[slot] = node + 1;
+			// keep the register at most half full
+			if (nodes * 2 > register.length) rehash();
+			return node;
+		}
+		
+		/**
+		 * Checks whether a finished node is the same as an open one
+		 * @param node the finished node
+		 * @param letters the letters of the open node's edges
+		 * @param to the targets of the open node's edges
+		 * @param count the # of edges of the open node
+		 * @param end whether a word ends at the open node
+		 * @return true if both have the same edges and finality
+		 */
+		private boolean same(int node, char[] letters, int[] to, int count, boolean end) {
+			if (finals[node] != end || first[node + 1] - first[node] != count) return false;
+			for (int i = 0; i < count; ++i)
+				if (labels[first[node] + i] != letters[i] || targets[first[node] + i] != to[i]) return false;
+			return true;
+		}
+		
+		/**
+		 * Hashes the contents of a node
+		 * @param letters the letters of the node's edges
+		 * @param to the targets of the node's edges
+		 * @param count the # of edges
+		 * @param end whether a word ends at the node
+		 * @return the hash of the node
+		 */
+		private static int hash(char[] letters, int[] to, int count, boolean end) {
+			int hash = end ? 1 : 0;
+			for (int i = 0; i < count; ++i) hash = (hash * 31 + letters[i]) * 31 + to[i];
+			// spread the bits, as only the lowest are used
+			hash *= 0x9E3779B9;
+			return hash ^ (hash >>> 16);
+		}
+		
+		/**
+		 * Doubles the register, putting every finished node back in
+		 */
+		private void rehash() {
+			register = new int[register.length * 2];
+			int mask = register.length - 1;
+			for (int node = 0; node < nodes; ++node) {
+				int from = first[node];
+				int slot = hashFinished(node, from) & mask;
+				while (register[slot] != 0) slot = (slot + 1) & mask;
+				register[slot] = node + 1;
+			}
+		}
+		
+		/**
+		 * Hashes the contents of a finished node, the same as hash would
+		 * @param node the finished node
+		 * @param from the index of its first edge
+		 * @return the hash of the node
+		 */
+		private int hashFinished(int node, int from) {
+			int hash = finals[node] ? 1 : 0;
+			for (int i = from; i < first[node + 1]; ++i) hash = (hash * 31 + labels[i]) * 31 + targets[i];
+			hash *= 0x9E3779B9;
+			return hash ^ (hash >>> 16);
+		}
+		
+		/**
+		 * Adds an edge to an open node, leading to the next open node
+		 * @param depth the depth of the open node
+		 * @param letter the letter of the edge
+		 */
+		private void addOpenEdge(int depth, char letter) {
+			if (openLabels[depth] == null) {
+				openLabels[depth] = new char[4];
+				openTargets[depth] = new int[4];
+			}
+			if (openEdges[depth] == openLabels[depth].length) {
+				openLabels[depth] = Arrays.copyOf(openLabels[depth], openEdges[depth] * 2);
+				openTargets[depth] = Arrays.copyOf(openTargets[depth], openEdges[depth] * 2);
+			}
+			openLabels[depth][openEdges[depth]] = letter;
+			// where it leads is only known once the next node is finished
+			openTargets[depth][openEdges[depth]++] = -1;
+		}
+		
+		/**
+		 * Makes room for open nodes down to some depth
+		 * @param depth the deepest open node needed
+		 */
+		private void ensureDepth(int depth) {
+			if (depth < openEdges.length) return;
+			int size = Math.max(depth + 1, openEdges.length * 2);
+			openLabels = Arrays.copyOf(openLabels, size);
+			openTargets = Arrays.copyOf(openTargets, size);
+			openEdges = Arrays.copyOf(openEdges, size);
+			openFinals = Arrays.copyOf(openFinals, size);
+			word = Arrays.copyOf(word, size);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,274 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// for building from a word file
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An inverted index from each k-gram (by default each adjacent pair) to the words containing it
+ * <br>
+ * Words are numbered in the order they are added, and each gram's words are kept as a WordBitmap of
+ * those numbers, so "words containing both qu and zz" is an intersection of two compressed sets
+ * instead of a scan of every word
+ * <br>
+ * Grams are packed into keys as in KGramCounter, and a LongCountMap maps each key to the slot of
+ * its posting list
+ * @author faith
+ */
+public class GramIndex implements WordSink {
+	/**
+	 * the # of letters in each indexed gram
+	 */
+	private final int k;
+	/**
+	 * the numbering of the letters seen so far
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the # of bits each letter takes up in a key
+	 */
+	private final int bits;
+	/**
+	 * the mask keeping only the bits of the last k letters of a key
+	 */
+	private final long mask;
+	/**
+	 * the slot + 1 of each packed gram's posting list
+	 */
+	private final LongCountMap slots;
+	/**
+	 * the words containing each gram, by slot
+	 */
+	private WordBitmap[] postings;
+	/**
+	 * the # of distinct grams
+	 */
+	private int grams;
+	/**
+	 * the index in chars of the first letter of each word (plus the end of the last)
+	 */
+	private int[] wordStart;
+	/**
+	 * the letters of every word, one after another
+	 */
+	private char[] chars;
+	/**
+	 * the # of words
+	 */
+	private int words;
+	
+	/**
+	 * Initializes an empty index of adjacent pairs
+	 */
+	public GramIndex() {
+		this(2);
+	}
+	
+	/**
+	 * Initializes an empty index with an Alphabet as big as the key allows
+	 * @param k the # of letters in each gram
+	 */
+	public GramIndex(int k) {
+		this(k, new Alphabet(1 << Math.min(16, KGramCounter.KEY_BITS / Math.max(1, k))));
+	}
+	
+	/**
+	 * Initializes an empty index using a given numbering of letters
+	 * @param k the # of letters in each gram
+	 * @param alphabet the Alphabet to pack grams with (will be added to if new letters are seen)
+	 */
+	public GramIndex(int k, Alphabet alphabet) {
+		if (k <= 0 || k > KGramCounter.KEY_BITS) throw new IllegalArgumentException("Invalid gram length: " + k);
+		this.k = k;
+		this.alphabet = alphabet;
+		bits = KGramCounter.bitsFor(alphabet.getCapacity());
+		// check that k letters fit in a key
+		if (bits * k > KGramCounter.KEY_BITS)
+			throw new IllegalArgumentException(k + "-grams of " + bits + "-bit letters do not fit in a key");
+		mask = (1L << (bits * k)) - 1;
+		slots = new LongCountMap();
+		postings = new WordBitmap[64];
+		wordStart = new int[1024];
+		chars = new char[8192];
+	}
+	
+	/**
+	 * Indexes every word of a file
+	 * @param file the UTF-8 file to read
+	 * @param k the # of letters in each gram
+	 * @return the completed index
+	 * @throws IOException if the file cannot be read
+	 */
+	public static GramIndex build(Path file, int k) throws IOException {
+		GramIndex index = new GramIndex(k);
+		WordReader.read(file, index);
+		index.trim();
+		return index;
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		int id = words;
+		// keep the word, so that ids can be turned back into words
+		if (words + 1 == wordStart.length) wordStart = Arrays.copyOf(wordStart, wordStart.length * 2);
+		if (wordStart[words] + len > chars.length)
+			chars = Arrays.copyOf(chars, Math.max(chars.length * 2, wordStart[words] + len));
+		System.arraycopy(buf, off, chars, wordStart[words], len);
+		wordStart[++words] = wordStart[id] + len;
+		
+		// slide along the word, adding it to each gram's list once k letters are held
+		long key = 0;
+		int held = 0;
+		for (int i = off; i < off + len; ++i) {
+			int index = alphabet.add(buf[i]);
+			if (index < 0)
+				throw new IllegalStateException("Too many distinct letters for " + bits + "-bit keys (at '"
+						+ buf[i] + "')");
+			key = ((key << bits) | index) & mask;
+			if (++held >= k) posting(key).add(id);
+		}
+	}
+	
+	/**
+	 * Gets the posting list of a gram, making it if the gram is new
+	 * @param key the key of the gram
+	 * @return the words containing the gram
+	 */
+	private WordBitmap posting(long key) {
+		int slot = (int) slots.get(key) - 1;
+		if (slot >= 0) return postings[slot];
+		
+		if (grams == postings.length) postings = Arrays.copyOf(postings, Math.max(1, grams) * 2);
+		slots.put(key, grams + 1);
+		return postings[grams++] = new WordBitmap();
+	}
+	
+	/**
+	 * Shrinks every posting list to fit, once no more words will be added
+	 */
+	public void trim() {
+		for (int slot = 0; slot < grams; ++slot) postings[slot].trim();
+		postings = Arrays.copyOf(postings, grams);
+		wordStart = Arrays.copyOf(wordStart, words + 1);
+		chars = Arrays.copyOf(chars, wordStart[words]);
+	}
+	
+	/**
+	 * Finds the words containing a gram
+	 * @param gram the k letters to look for
+	 * @return the ids of every word containing gram (a new set, which may be changed freely)
+	 */
+	public WordBitmap get(CharSequence gram) {
+		WordBitmap posting = find(gram);
+		return posting == null ? new WordBitmap() : posting.copy();
+	}
+	
+	/**
+	 * Finds the words containing two letters next to each other, in either order
+	 * @param first one letter
+	 * @param second the other letter
+	 * @return the ids of every word where first and second are adjacent
+	 */
+	public WordBitmap adjacent(char first, char second) {
+		if (k != 2) throw new IllegalStateException("Adjacency needs an index of pairs, not " + k + "-grams");
+		return any(new String(new char[] {first, second}), new String(new char[] {second, first}));
+	}
+	
+	/**
+	 * Finds the words containing every one of some grams
+	 * @param grams the grams of k letters each to look for
+	 * @return the ids of every word containing all of them
+	 */
+	public WordBitmap all(CharSequence... grams) {
+		if (grams.length == 0) throw new IllegalArgumentException("No grams to look for");
+		
+		// intersect the smallest lists first, so that everything after is as cheap as possible
+		WordBitmap[] found = new WordBitmap[grams.length];
+		for (int i = 0; i < grams.length; ++i) {
+			found[i] = find(grams[i]);
+			if (found[i] == null) return new WordBitmap();
+		}
+		Arrays.sort(found, (a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+		WordBitmap result = found[0].copy();
+		for (int i = 1; i < found.length && !result.isEmpty(); ++i) result = result.and(found[i]);
+		return result;
+	}
+	
+	/**
+	 * Finds the words containing any of some grams
+	 * @param grams the grams of k letters each to look for
+	 * @return the ids of every word containing at least one of them
+	 */
+	public WordBitmap any(CharSequence... grams) {
+		WordBitmap result = new WordBitmap();
+		for (CharSequence gram : grams) {
+			WordBitmap posting = find(gram);
+			if (posting != null) result = result.or(posting);
+		}
+		return result;
+	}
+	
+	/**
+	 * Looks up the posting list of a gram
+	 * @param gram the k letters to look for
+	 * @return the words containing gram (not to be changed), or null if no word does
+	 */
+	private WordBitmap find(CharSequence gram) {
+		long key = KGramCounter.pack(gram, k, bits, alphabet);
+		int slot = (int) slots.get(key) - 1;
+		return slot < 0 ? null : postings[slot];
+	}
+	
+	/**
+	 * Gets a word by its id
+	 * @param id the # of words added before it
+	 * @return the word
+	 */
+	public String wordAt(int id) {
+		if (id < 0 || id >= words) throw new IndexOutOfBoundsException("Invalid word id: " + id);
+		return new String(chars, wordStart[id], wordStart[id + 1] - wordStart[id]);
+	}
+	
+	/**
+	 * Gets the words of some ids
+	 * @param ids the ids of words, as returned by a query
+	 * @return the words, in the order they were added
+	 */
+	public List<String> words(WordBitmap ids) {
+		List<String> list = new ArrayList<String>(ids.getCardinality());
+		ids.forEach(id -> list.add(wordAt(id)));
+		return list;
+	}
+	
+	/**
+	 * Getter for this.k
+	 * @return the # of letters in each indexed gram
+	 */
+	public int getK() {return k;}
+	
+	/**
+	 * Getter for this.words
+	 * @return the # of words indexed
+	 */
+	public int getWordCount() {return words;}
+	
+	/**
+	 * Getter for this.grams
+	 * @return the # of distinct grams indexed
+	 */
+	public int getDistinct() {return grams;}
+	
+	/**
+	 * Estimates the memory used by the posting lists
+	 * @return the # of bytes of ids and bits held by every posting list
+	 */
+	public long getPostingBytes() {
+		long bytes = 0;
+		for (int slot = 0; slot < grams; ++slot) bytes += postings[slot].getBytes();
+		return bytes;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// for searching start cells concurrently
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds every dictionary word which can be traced through a letter grid (as in Boggle), moving
+ * between horizontally, vertically or diagonally neighbouring cells and using each cell at most once
+ * per word
+ * <br>
+ * Paths are walked against a Dawg, so a path stops as soon as no word starts with it, and before
+ * any search each step between neighbours is checked against adjacency counts: steps between
+ * letters which are never adjacent in the dictionary are dropped from the grid entirely
+ * <br>
+ * Start cells are split between the tasks of a ForkJoinPool, which mark the words they find by
+ * their Dawg word numbers in one shared bit set, so no Strings are made until the very end
+ * @author faith
+ */
+public class GridSolver {
+	/**
+	 * the dictionary to find words from
+	 */
+	private final Dawg dictionary;
+	/**
+	 * the adjacency counts of the dictionary
+	 */
+	private final AdjCounts adjacency;
+	
+	/**
+	 * the most start cells searched by one task before it splits
+	 */
+	public static final int CELLS_PER_TASK = 16;
+	
+	/**
+	 * Initializes a solver
+	 * @param dictionary the dictionary to find words from
+	 * @param adjacency the adjacency counts of the same words, used to drop impossible steps
+	 */
+	public GridSolver(Dawg dictionary, AdjCounts adjacency) {
+		this.dictionary = dictionary;
+		this.adjacency = adjacency;
+	}
+	
+	/**
+	 * Finds every word in a grid, on the common pool
+	 * @param grid the letters of the grid, row by row (rows may differ in length)
+	 * @param minLength the fewest letters a word may have
+	 * @return every word found, sorted
+	 */
+	public List<String> solve(char[][] grid, int minLength) {
+		return solve(grid, minLength, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Finds every word in a grid
+	 * @param grid the letters of the grid, row by row (rows may differ in length)
+	 * @param minLength the fewest letters a word may have
+	 * @param pool the pool to search on
+	 * @return every word found, sorted
+	 */
+	public List<String> solve(char[][] grid, int minLength, ForkJoinPool pool) {
+		Board board = new Board(grid);
+		AtomicLongArray marks = new AtomicLongArray((dictionary.getWordCount() + 63) >>> 6);
+		pool.invoke(new StartTask(board, Math.max(1, minLength), marks, 0, board.letters.length));
+		
+		// words are numbered in sorted order, so reading the marks in order sorts them
+		List<String> found = new ArrayList<String>();
+		for (int i = 0; i < marks.length(); ++i) for (long bits = marks.get(i); bits != 0; bits &= bits - 1)
+			found.add(dictionary.wordAt((i << 6) + Long.numberOfTrailingZeros(bits)));
+		return found;
+	}
+	
+	/**
+	 * A grid flattened into cells, with each cell's usable steps worked out ahead of time
+	 * @author faith
+	 */
+	private class Board {
+		/**
+		 * the letter of each cell
+		 */
+		private final char[] letters;
+		/**
+		 * the index of each cell's first step (plus the end of the last cell's)
+		 */
+		private final int[] first;
+		/**
+		 * the cell each step leads to
+		 */
+		private final int[] steps;
+		
+		/**
+		 * Flattens a grid, keeping only steps between letters which are ever adjacent
+		 * @param grid the letters of the grid, row by row
+		 */
+		public Board(char[][] grid) {
+			// number the cells row by row
+			int[] rowStart = new int[grid.length + 1];
+			for (int row = 0; row < grid.length; ++row) rowStart[row + 1] = rowStart[row] + grid[row].length;
+			letters = new char[rowStart[grid.length]];
+			for (int row = 0; row < grid.length; ++row)
+				System.arraycopy(grid[row], 0, letters, rowStart[row], grid[row].length);
+			
+			// every cell has at most 8 neighbours
+			first = new int[letters.length + 1];
+			int[] found = new int[letters.length * 8];
+			int count = 0;
+			for (int row = 0; row < grid.length; ++row) for (int col = 0; col < grid[row].length; ++col) {
+				int from = rowStart[row] + col;
+				first[from] = count;
+				for (int r = row - 1; r <= row + 1; ++r) for (int c = col - 1; c <= col + 1; ++c) {
+					if (r < 0 || r >= grid.length || c < 0 || c >= grid[r].length || (r == row && c == col))
+						continue;
+					// a step between letters which are never adjacent can never be part of a word
+					int to = rowStart[r] + c;
+					if (adjacency.getCount(letters[from], letters[to]) > 0) found[count++] = to;
+				}
+			}
+			first[letters.length] = count;
+			steps = Arrays.copyOf(found, count);
+		}
+	}
+	
+	/**
+	 * Searches from a range of start cells, splitting while the range is big
+	 * @author faith
+	 */
+	@SuppressWarnings("serial")
+	private class StartTask extends RecursiveAction {
+		/**
+		 * the grid being searched
+		 */
+		private final Board board;
+		/**
+		 * the fewest letters a word may have
+		 */
+		private final int minLength;
+		/**
+		 * a bit for each dictionary word, set once it is found
+		 */
+		private final AtomicLongArray marks;
+		/**
+		 * the first start cell
+		 */
+		private final int from;
+		/**
+		 * the cell after the last start cell
+		 */
+		private final int to;
+		/**
+		 * which cells the current path uses
+		 */
+		private boolean[] used;
+		
+		/**
+		 * @param board the grid being searched
+		 * @param minLength the fewest letters a word may have
+		 * @param marks a bit for each dictionary word, set once it is found
+		 * @param from the first start cell
+		 * @param to the cell after the last start cell
+		 */
+		public StartTask(Board board, int minLength, AtomicLongArray marks, int from, int to) {
+			this.board = board;
+			this.minLength = minLength;
+			this.marks = marks;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute() {
+			// split big ranges in half
+			if (to - from > CELLS_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new StartTask(board, minLength, marks, from, mid),
+						new StartTask(board, minLength, marks, mid, to));
+				return;
+			}
+			
+			// search from each start cell, sharing one set of used cells between them
+			used = new boolean[board.letters.length];
+			for (int cell = from; cell < to; ++cell) {
+				int edge = dictionary.edge(dictionary.getRoot(), board.letters[cell]);
+				if (edge >= 0) walk(cell, dictionary.getTarget(edge), dictionary.getSkip(edge), 1);
+			}
+		}
+		
+		/**
+		 * Marks the word of the current path (if it is one), then tries every step out of its last cell
+		 * @param cell the last cell of the path
+		 * @param node the dictionary node reached by the path
+		 * @param index the dictionary number the path's word would have
+		 * @param length the # of letters in the path
+		 */
+		private void walk(int cell, int node, int index, int length) {
+			// only touch the shared marks for words not yet found
+			if (length >= minLength && dictionary.isFinal(node)) {
+				long bit = 1L << index;
+				if ((marks.get(index >>> 6) & bit) == 0) marks.getAndUpdate(index >>> 6, bits -> bits | bit);
+			}
+			
+			used[cell] = true;
+			for (int step = board.first[cell]; step < board.first[cell + 1]; ++step) {
+				int next = board.steps[step];
+				if (used[next]) continue;
+				int edge = dictionary.edge(node, board.letters[next]);
+				if (edge >= 0) walk(next, dictionary.getTarget(edge), index + dictionary.getSkip(edge), length + 1);
+			}
+			used[cell] = false;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.Collection;
+
+/**
+ * Letter adjacency counts for a changing dictionary, updated in place as words come and go
+ * <br>
+ * Writers are serialized; readers take snapshots, which are shared with the writers
+ * until the next change (copy-on-write), so a snapshot costs nothing if nothing has changed
+ * and at most one copy of the counts if something has
+ * @author faith
+ */
+public class IncrementalAdjCounter implements WordSink {
+	/**
+	 * the current counts
+	 */
+	private AdjMatrix matrix;
+	/**
+	 * whether matrix has been handed out in a snapshot (and so must not change)
+	 */
+	private boolean shared;
+	
+	/**
+	 * Initializes a counter with no words
+	 */
+	public IncrementalAdjCounter() {
+		this(new AdjMatrix());
+	}
+	
+	/**
+	 * Initializes a counter with no words
+	 * @param mode how pairs are counted
+	 */
+	public IncrementalAdjCounter(AdjMatrix.Mode mode) {
+		this(new AdjMatrix(mode));
+	}
+	
+	/**
+	 * Initializes a counter starting from existing counts
+	 * @param start the counts to start from (copied, so later changes to it are not seen)
+	 */
+	public IncrementalAdjCounter(AdjMatrix start) {
+		matrix = start.copy();
+		shared = false;
+	}
+	
+	/**
+	 * Adds a word's adjacencies
+	 * @param word the word to add
+	 */
+	public void addWord(char[] word) {
+		addWord(word, 0, word.length);
+	}
+	
+	public synchronized void addWord(char[] buf, int off, int len) {
+		writable().addWord(buf, off, len);
+	}
+	
+	/**
+	 * Removes a word's adjacencies
+	 * @param word the word to remove, which must have been added before
+	 * @throws IllegalArgumentException if the word was never added (nothing is changed)
+	 */
+	public void removeWord(char[] word) {
+		removeWord(word, 0, word.length);
+	}
+	
+	/**
+	 * Removes a word's adjacencies
+	 * @param buf the array containing the word, which must have been added before
+	 * @param off the index of the first letter of the word
+	 * @param len the # of letters in the word
+	 * @throws IllegalArgumentException if the word was never added (nothing is changed)
+	 */
+	public synchronized void removeWord(char[] buf, int off, int len) {
+		writable().removeWord(buf, off, len);
+	}
+	
+	/**
+	 * Adds many words' adjacencies, as a single change
+	 * @param words the words to add
+	 */
+	public synchronized void addWords(Collection<char[]> words) {
+		AdjMatrix target = writable();
+		for (char[] word : words) target.addWord(word);
+	}
+	
+	/**
+	 * Removes many words' adjacencies, as a single change
+	 * @param words the words to remove, which must all have been added before
+	 * @throws IllegalArgumentException if any word was never added (earlier words stay removed)
+	 */
+	public synchronized void removeWords(Collection<char[]> words) {
+		AdjMatrix target = writable();
+		for (char[] word : words) target.removeWord(word, 0, word.length);
+	}
+	
+	/**
+	 * Takes a consistent snapshot of the counts
+	 * @return counts which will never change, even as words are added and removed
+	 */
+	public synchronized AdjCounts getSnapshot() {
+		// the current matrix can no longer change, so any writer has to copy it first
+		shared = true;
+		return matrix.getView();
+	}
+	
+	/**
+	 * Gets the matrix to write to, copying it first if it has been shared with readers
+	 * @return a matrix only this counter can see
+	 */
+	private AdjMatrix writable() {
+		if (shared) {
+			matrix = matrix.copy();
+			shared = false;
+		}
+		return matrix;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,492 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+// for reporting periodically
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// for recording to Flight Recorder
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Measures how fast words go through each stage of ingestion (reading, normalizing, counting, ...),
+ * so that a slow run shows whether it is held up by I/O, tokenizing or counting
+ * <br>
+ * Bytes are reported by the reader (see CorpusLoader.read), and words and pairs by each Stage's
+ * meters: WordSinks placed in front of the stage, one per reading thread, which count what passes
+ * into it and only add to the shared totals every FLUSH words
+ * <br>
+ * Readers given progress() also time each slice they read, so the time spent reading and decoding
+ * (outside every stage) shows whether a run is held up by I/O rather than by its stages
+ * <br>
+ * Every SAMPLE words a meter also times the call into its stage, so the time spent in each stage (and
+ * every stage after it) is estimated without reading the clock for every word
+ * <br>
+ * Progress can be printed periodically and as a final summary, and every report is also recorded
+ * as IngestEvents, which Flight Recorder keeps whenever it is running
+ * @author faith
+ */
+public class IngestMetrics {
+	/**
+	 * the # of bytes read so far
+	 */
+	private final LongAdder bytes;
+	/**
+	 * the stages being metered, in pipeline order
+	 */
+	private final List<Stage> stages;
+	/**
+	 * the # of nanoseconds reading threads spent between progress reports (every stage included)
+	 */
+	private final LongAdder readNanos;
+	/**
+	 * the time each reading thread last reported progress
+	 */
+	private final ThreadLocal<long[]> lastRead;
+	/**
+	 * the # of distinct keys counted so far, or null if unknown
+	 */
+	private volatile LongSupplier distinct;
+	/**
+	 * the time ingestion started
+	 */
+	private final long start;
+	/**
+	 * the thread printing periodic progress, or null if there is none
+	 */
+	private ScheduledExecutorService reporter;
+	
+	/**
+	 * the # of words a meter counts before adding them to its stage's totals
+	 */
+	public static final int FLUSH = 1 << 12;
+	/**
+	 * a meter times one word into its stage in every this many
+	 */
+	public static final int SAMPLE = 1 << 6;
+	/**
+	 * how far apart (in words) each stage's timed words are from the last stage's, so a stage's timed
+	 * words are not the ones where the stage after it is also reading the clock
+	 */
+	private static final int PHASE_STEP = 37;
+	/**
+	 * the # of nanoseconds reading the clock itself takes, taken off every timed word
+	 */
+	private static final long CLOCK_COST = clockCost();
+	/**
+	 * the # of bytes in a megabyte
+	 */
+	private static final double MB = 1 << 20;
+	
+	/**
+	 * Starts measuring, with no stages yet
+	 */
+	public IngestMetrics() {
+		bytes = new LongAdder();
+		readNanos = new LongAdder();
+		stages = new CopyOnWriteArrayList<Stage>();
+		start = System.nanoTime();
+		// a thread's first slice is timed from the start
+		lastRead = ThreadLocal.withInitial(() -> new long[] {start});
+	}
+	
+	/**
+	 * Adds a stage to meter (before any words are read)
+	 * @param name the name to report the stage by
+	 * @return the stage, to make meters for each reading thread
+	 */
+	public Stage stage(String name) {
+		Stage stage = new Stage(name, stages.size() * PHASE_STEP % SAMPLE);
+		stages.add(stage);
+		return stage;
+	}
+	
+	/**
+	 * Counts bytes read (from any thread)
+	 * @param read the # of bytes just read
+	 */
+	public void addBytes(long read) {
+		bytes.add(read);
+	}
+	
+	/**
+	 * Makes a progress callback for readers, which counts bytes like addBytes and also times reading
+	 * <br>
+	 * Each report adds the time since the same thread's last report (or the start), so it must be
+	 * called after every slice read, as CorpusLoader.read does
+	 * @return the callback to read with
+	 */
+	public LongConsumer progress() {
+		return read -> {
+			long now = System.nanoTime();
+			long[] last = lastRead.get();
+			readNanos.add(now - last[0]);
+			last[0] = now;
+			bytes.add(read);
+		};
+	}
+	
+	/**
+	 * Sets how to find the # of distinct keys counted
+	 * @param distinct gives the # of distinct keys so far (called from the reporting thread)
+	 */
+	public void setDistinct(LongSupplier distinct) {
+		this.distinct = distinct;
+	}
+	
+	/**
+	 * Starts printing progress periodically on a background thread
+	 * @param out where to print progress
+	 * @param period the # of milliseconds between reports
+	 */
+	public synchronized void startReporting(PrintStream out, long period) {
+		if (reporter != null) throw new IllegalStateException("Already reporting");
+		if (period <= 0) throw new IllegalArgumentException("Invalid report period: " + period);
+		
+		// a daemon thread, so a forgotten reporter never keeps the program running
+		reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "ingest-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(() -> out.println(report(false)), period, period, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops periodic progress and prints a final summary, once every reading thread is done
+	 * @param out where to print the summary
+	 */
+	public synchronized void finish(PrintStream out) {
+		// let a report in progress finish, so it is not mixed up with the summary
+		if (reporter != null) {
+			reporter.shutdown();
+			try {
+				reporter.awaitTermination(1, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			reporter = null;
+		}
+		
+		// the readers are done, so their meters' leftover counts can be added
+		for (Stage stage : stages) stage.flush();
+		out.println(report(true));
+	}
+	
+	/**
+	 * Describes progress so far, and records it to Flight Recorder
+	 * @param summary whether to describe each stage on its own line, instead of all on one line
+	 * @return the report
+	 */
+	public String report(boolean summary) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Runtime runtime = Runtime.getRuntime();
+		long heap = runtime.totalMemory() - runtime.freeMemory();
+		LongSupplier keys = distinct;
+		long known = keys == null ? -1 : keys.getAsLong();
+		String between = summary ? System.lineSeparator() + "  " : " | ";
+		
+		// overall progress first (with the time reading spent outside every stage), then each stage's
+		long reading = readNanos.sum();
+		long outside = stages.isEmpty() ? reading : Math.max(0, reading - stages.get(0).nanos.sum());
+		StringBuilder report = new StringBuilder(String.format("%.1fs: %.1f MB read (%.1f MB/s)", seconds,
+				bytes.sum() / MB, bytes.sum() / MB / seconds));
+		if (reading > 0) report.append(String.format(", %.1fs reading (%.1fs outside stages)", reading / 1e9,
+				outside / 1e9));
+		for (Stage stage : stages) {
+			long words = stage.words.sum();
+			long pairs = stage.pairs.sum();
+			long nanos = stage.nanos.sum();
+			report.append(between).append(String.format("%s: %,d words (%,.0f/s), %,d pairs (%,.0f/s), "
+					+ "%.1fs in stage", stage.name, words, words / seconds, pairs, pairs / seconds, nanos / 1e9));
+			record(stage, seconds, reading, known, heap);
+		}
+		if (known >= 0) report.append(between).append(String.format("%,d distinct keys", known));
+		report.append(between).append(String.format("heap %.0f of %.0f MB", heap / MB, runtime.maxMemory() / MB));
+		return report.toString();
+	}
+	
+	/**
+	 * Records a stage's progress to Flight Recorder, if it is recording ingestion
+	 * @param stage the stage to record
+	 * @param seconds the time since ingestion started
+	 * @param reading the # of nanoseconds reading threads spent reading, every stage included
+	 * @param distinct the # of distinct keys counted, or -1 if unknown
+	 * @param heap the # of bytes of heap in use
+	 */
+	private void record(Stage stage, double seconds, long reading, long distinct, long heap) {
+		IngestEvent event = new IngestEvent();
+		if (!event.isEnabled()) return;
+		event.stage = stage.name;
+		event.elapsed = (long) (seconds * 1e9);
+		event.bytes = bytes.sum();
+		event.reading = reading;
+		event.words = stage.words.sum();
+		event.pairs = stage.pairs.sum();
+		event.inStage = stage.nanos.sum();
+		event.distinct = distinct;
+		event.heapUsed = heap;
+		event.commit();
+	}
+	
+	/**
+	 * Measures how long back-to-back clock reads take, which would otherwise be counted as time in a
+	 * stage (as much as the stage itself, for cheap stages)
+	 * @return the smallest gap seen between two clock reads
+	 */
+	private static long clockCost() {
+		long cost = Long.MAX_VALUE;
+		for (int i = 0; i < 1 << 14; ++i) {
+			long before = System.nanoTime();
+			cost = Math.min(cost, System.nanoTime() - before);
+		}
+		return cost;
+	}
+	
+	/**
+	 * Getter for this.bytes
+	 * @return the # of bytes read so far
+	 */
+	public long getBytes() {return bytes.sum();}
+	
+	/**
+	 * Gets the time spent reading
+	 * @return the # of nanoseconds reading threads spent between progress reports, summed over every
+	 * thread (every stage included)
+	 */
+	public long getReadNanos() {return readNanos.sum();}
+	
+	/**
+	 * One stage of ingestion, whose input is counted by meters
+	 * @author faith
+	 */
+	public static class Stage {
+		/**
+		 * the name to report this stage by
+		 */
+		private final String name;
+		/**
+		 * the # of words into this stage
+		 */
+		private final LongAdder words;
+		/**
+		 * the # of adjacent pairs in the words into this stage
+		 */
+		private final LongAdder pairs;
+		/**
+		 * the estimated # of nanoseconds spent in this stage (and every stage after it)
+		 */
+		private final LongAdder nanos;
+		/**
+		 * every meter made for this stage
+		 */
+		private final Queue<Meter> meters;
+		/**
+		 * the # of words (below SAMPLE) each meter lets through before its first timed word
+		 */
+		private final int phase;
+		
+		/**
+		 * Initializes a stage with nothing counted
+		 * @param name the name to report the stage by
+		 * @param phase the # of words (below SAMPLE) each meter lets through before its first timed word
+		 */
+		private Stage(String name, int phase) {
+			this.name = name;
+			this.phase = phase;
+			words = new LongAdder();
+			pairs = new LongAdder();
+			nanos = new LongAdder();
+			meters = new ConcurrentLinkedQueue<Meter>();
+		}
+		
+		/**
+		 * Makes a meter for one reading thread
+		 * @param sink the start of this stage, which metered words are passed on to
+		 * @return a sink counting words on their way to sink
+		 */
+		public WordSink meter(WordSink sink) {
+			Meter meter = new Meter(this, sink);
+			meters.add(meter);
+			return meter;
+		}
+		
+		/**
+		 * Adds every meter's leftover counts to the totals
+		 */
+		private void flush() {
+			for (Meter meter : meters) meter.flush();
+		}
+		
+		/**
+		 * Getter for this.name
+		 * @return the name to report this stage by
+		 */
+		public String getName() {return name;}
+		
+		/**
+		 * Gets the # of words into this stage
+		 * @return the # of words counted so far (missing up to FLUSH words per meter until finished)
+		 */
+		public long getWords() {return words.sum();}
+		
+		/**
+		 * Gets the # of pairs into this stage
+		 * @return the # of adjacent pairs in the words counted so far
+		 */
+		public long getPairs() {return pairs.sum();}
+		
+		/**
+		 * Gets the time spent in this stage
+		 * @return the estimated # of nanoseconds spent in this stage and every stage after it, summed over
+		 * every thread
+		 */
+		public long getNanos() {return nanos.sum();}
+	}
+	
+	/**
+	 * Counts words on their way into a stage, for one thread
+	 * @author faith
+	 */
+	private static class Meter implements WordSink {
+		/**
+		 * the stage whose totals are added to
+		 */
+		private final Stage stage;
+		/**
+		 * the start of the stage
+		 */
+		private final WordSink sink;
+		/**
+		 * the # of words not yet added to the totals
+		 */
+		private int words;
+		/**
+		 * the # of pairs not yet added to the totals
+		 */
+		private long pairs;
+		/**
+		 * the estimated # of nanoseconds not yet added to the totals
+		 */
+		private long nanos;
+		/**
+		 * the # of words until the next timed word
+		 */
+		private int untilTimed;
+		
+		/**
+		 * @param stage the stage whose totals are added to
+		 * @param sink the start of the stage
+		 */
+		public Meter(Stage stage, WordSink sink) {
+			this.stage = stage;
+			this.sink = sink;
+			untilTimed = stage.phase + 1;
+		}
+		
+		public void addWord(char[] buf, int off, int len) {
+			pairs += Math.max(0, len - 1);
+			++words;
+			// time one word in every SAMPLE, standing in for the rest
+			if (--untilTimed != 0) {
+				sink.addWord(buf, off, len);
+				return;
+			}
+			untilTimed = SAMPLE;
+			long before = System.nanoTime();
+			sink.addWord(buf, off, len);
+			nanos += Math.max(0, System.nanoTime() - before - CLOCK_COST) * SAMPLE;
+			if (words >= FLUSH) flush();
+		}
+		
+		/**
+		 * Adds the counts so far to the totals
+		 */
+		private void flush() {
+			stage.words.add(words);
+			stage.pairs.add(pairs);
+			stage.nanos.add(nanos);
+			words = 0;
+			pairs = 0;
+			nanos = 0;
+		}
+	}
+	
+	/**
+	 * A Flight Recorder event holding one stage's progress
+	 * @author faith
+	 */
+	@Name("puzzleHelp.Ingest")
+	@Label("Ingestion Progress")
+	@Category("puzzleHelp")
+	@Description("Totals so far of one stage of word ingestion")
+	public static class IngestEvent extends Event {
+		/**
+		 * the name of the stage
+		 */
+		@Label("Stage")
+		String stage;
+		/**
+		 * the time since ingestion started
+		 */
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+		/**
+		 * the # of bytes read so far
+		 */
+		@Label("Bytes Read")
+		@DataAmount
+		long bytes;
+		/**
+		 * the time reading threads spent reading, every stage included
+		 */
+		@Label("Time Reading")
+		@Timespan
+		long reading;
+		/**
+		 * the # of words into the stage
+		 */
+		@Label("Words")
+		long words;
+		/**
+		 * the # of adjacent pairs in the words into the stage
+		 */
+		@Label("Pairs")
+		long pairs;
+		/**
+		 * the estimated time spent in the stage and every stage after it
+		 */
+		@Label("Time In Stage")
+		@Timespan
+		long inStage;
+		/**
+		 * the # of distinct keys counted, or -1 if unknown
+		 */
+		@Label("Distinct Keys")
+		long distinct;
+		/**
+		 * the # of bytes of heap in use
+		 */
+		@Label("Heap Used")
+		@DataAmount
+		long heapUsed;
+	}
+}
\ No newline at end of file
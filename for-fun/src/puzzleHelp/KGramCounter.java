@@ -0,0 +1,200 @@
+package puzzleHelp;
+
+/**
+ * Counts every run of k consecutive letters (k-gram) in words
+ * <br>
+ * Each k-gram is packed into a long, k Alphabet indices of a fixed # of bits each,
+ * and counted in a LongCountMap, so memory grows only with the # of distinct k-grams
+ * @author faith
+ */
+public class KGramCounter implements KGramCounts, WordSink {
+	/**
+	 * the # of letters in each counted gram
+	 */
+	private final int k;
+	/**
+	 * the numbering of the letters counted so far
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the # of bits each letter takes up in a key
+	 */
+	private final int bits;
+	/**
+	 * the mask keeping only the bits of the last k letters of a key
+	 */
+	private final long mask;
+	/**
+	 * the count of each packed k-gram
+	 */
+	private final LongCountMap counts;
+	
+	/**
+	 * the most bits a key can use (so that keys are never negative)
+	 */
+	public static final int KEY_BITS = 63;
+	
+	/**
+	 * Initializes a counter with an Alphabet as big as the key allows
+	 * @param k the # of letters in each gram
+	 */
+	public KGramCounter(int k) {
+		this(k, new Alphabet(1 << Math.min(16, KEY_BITS / checkK(k))));
+	}
+	
+	/**
+	 * Initializes a counter using a given numbering of letters
+	 * @param k the # of letters in each gram
+	 * @param alphabet the Alphabet to index by (will be added to if new letters are seen)
+	 */
+	public KGramCounter(int k, Alphabet alphabet) {
+		this.k = checkK(k);
+		this.alphabet = alphabet;
+		bits = bitsFor(alphabet.getCapacity());
+		// check that k letters fit in a key
+		if (bits * k > KEY_BITS)
+			throw new IllegalArgumentException(k + "-grams of " + bits + "-bit letters do not fit in a key");
+		mask = (1L << (bits * k)) - 1;
+		counts = new LongCountMap();
+	}
+	
+	/**
+	 * Checks that a gram length makes sense
+	 * @param k the # of letters in each gram
+	 * @return k, if it is valid
+	 */
+	private static int checkK(int k) {
+		if (k <= 0 || k > KEY_BITS)
+			throw new IllegalArgumentException("Invalid gram length: " + k);
+		return k;
+	}
+	
+	/**
+	 * Calculates the # of bits needed to hold any index of an Alphabet
+	 * @param capacity the maximum # of letters in the Alphabet
+	 * @return the # of bits needed for indices 0 to capacity - 1
+	 */
+	static int bitsFor(int capacity) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		// the key of the most recent letters, and how many letters it holds
+		long key = 0;
+		int held = 0;
+		// slide along the word, counting a gram once k letters are held
+		for (int i = off; i < off + len; ++i) {
+			key = ((key << bits) | indexFor(buf[i])) & mask;
+			if (++held >= k) counts.add(key, 1);
+		}
+	}
+	
+	/**
+	 * Counts all k-grams in a word
+	 * @param word the word to count
+	 */
+	public void addWord(char[] word) {
+		addWord(word, 0, word.length);
+	}
+	
+	/**
+	 * Gets the index of a letter, adding it to the Alphabet if it is new
+	 * @param letter the letter to look up
+	 * @return the index of the letter
+	 */
+	private int indexFor(char letter) {
+		int index = alphabet.add(letter);
+		if (index < 0)
+			throw new IllegalStateException("Too many distinct letters for " + bits + "-bit keys (at '"
+					+ letter + "')");
+		return index;
+	}
+	
+	public long pack(CharSequence gram) {
+		return pack(gram, k, bits, alphabet);
+	}
+	
+	public String unpack(long key) {
+		return unpack(key, k, bits, alphabet);
+	}
+	
+	/**
+	 * Packs a gram into a key
+	 * @param gram the k letters to pack
+	 * @param k the # of letters in each gram
+	 * @param bits the # of bits each letter takes up in a key
+	 * @param alphabet the numbering of letters
+	 * @return the key for gram, or -1 if any of its letters are not in alphabet
+	 */
+	static long pack(CharSequence gram, int k, int bits, Alphabet alphabet) {
+		if (gram.length() != k)
+			throw new IllegalArgumentException("Gram \"" + gram + "\" is not " + k + " letters long");
+		
+		long key = 0;
+		for (int i = 0; i < k; ++i) {
+			int index = alphabet.indexOf(gram.charAt(i));
+			if (index < 0) return -1;
+			key = (key << bits) | index;
+		}
+		return key;
+	}
+	
+	/**
+	 * Unpacks a key into its gram
+	 * @param key the key to unpack
+	 * @param k the # of letters in each gram
+	 * @param bits the # of bits each letter takes up in a key
+	 * @param alphabet the numbering of letters
+	 * @return the k letters packed into key
+	 */
+	static String unpack(long key, int k, int bits, Alphabet alphabet) {
+		char[] gram = new char[k];
+		// the last letter is in the lowest bits
+		for (int i = k - 1; i >= 0; --i) {
+			gram[i] = alphabet.letterAt((int) (key & ((1L << bits) - 1)));
+			key >>>= bits;
+		}
+		return new String(gram);
+	}
+	
+	/**
+	 * Gets the count of a packed gram
+	 * @param key the key of the gram
+	 * @return the # of times the gram appeared in counted words
+	 */
+	public long getCount(long key) {
+		return counts.get(key);
+	}
+	
+	/**
+	 * Shows every counted gram to a Visitor, in no particular order
+	 * @param visitor the Visitor to show packed grams and their counts to
+	 */
+	public void forEach(LongCountMap.Visitor visitor) {
+		counts.forEach(visitor);
+	}
+	
+	/**
+	 * Getter for this.k
+	 * @return the # of letters in each counted gram
+	 */
+	public int getK() {return k;}
+	
+	/**
+	 * Getter for this.bits
+	 * @return the # of bits each letter takes up in a key
+	 */
+	public int getBits() {return bits;}
+	
+	/**
+	 * Gets the numbering of letters
+	 * @return a copy of the Alphabet keys are packed with
+	 */
+	public Alphabet getAlphabet() {return alphabet.copy();}
+	
+	/**
+	 * Gets the # of distinct grams
+	 * @return the # of different k-grams counted
+	 */
+	public int getDistinct() {return counts.getSize();}
+}
\ No newline at end of file
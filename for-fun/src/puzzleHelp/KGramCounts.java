@@ -0,0 +1,56 @@
+package puzzleHelp;
+
+/**
+ * A read-only view of k-gram counts, where each gram is packed into a long key
+ * @author faith
+ */
+public interface KGramCounts {
+	/**
+	 * Gets the gram length
+	 * @return the # of letters in each counted gram
+	 */
+	int getK();
+	
+	/**
+	 * Packs a gram into a key
+	 * @param gram the k letters to pack
+	 * @return the key for gram, or -1 if any of its letters have never been counted
+	 */
+	long pack(CharSequence gram);
+	
+	/**
+	 * Unpacks a key into its gram
+	 * @param key the key to unpack
+	 * @return the k letters packed into key
+	 */
+	String unpack(long key);
+	
+	/**
+	 * Gets the count of a packed gram
+	 * @param key the key of the gram
+	 * @return the # of times the gram appeared in counted words
+	 */
+	long getCount(long key);
+	
+	/**
+	 * Gets the count of a gram
+	 * @param gram the k letters to look up
+	 * @return the # of times gram appeared in counted words
+	 */
+	default long getCount(CharSequence gram) {
+		long key = pack(gram);
+		return key < 0 ? 0 : getCount(key);
+	}
+	
+	/**
+	 * Shows every counted gram to a Visitor
+	 * @param visitor the Visitor to show packed grams and their counts to
+	 */
+	void forEach(LongCountMap.Visitor visitor);
+	
+	/**
+	 * Gets the # of distinct grams
+	 * @return the # of different k-grams counted
+	 */
+	int getDistinct();
+}
\ No newline at end of file
@@ -0,0 +1,237 @@
+package puzzleHelp;
+
+// for clearing the table
+import java.util.Arrays;
+
+/**
+ * A hash map from non-negative long keys to long counts, using open addressing over primitive arrays
+ * <br>
+ * Nothing is boxed and nothing is allocated per entry, so memory grows only with the # of distinct keys
+ * @author faith
+ */
+public class LongCountMap {
+	/**
+	 * the keys of the table, or EMPTY for unused slots
+	 */
+	private long[] keys;
+	/**
+	 * the counts of the table, matching keys
+	 */
+	private long[] counts;
+	/**
+	 * the # of keys in the table
+	 */
+	private int size;
+	/**
+	 * the # of bits to shift a hash right by to get a slot (64 - log2(keys.length))
+	 */
+	private int shift;
+	
+	/**
+	 * the marker for an unused slot
+	 */
+	private static final long EMPTY = -1;
+	/**
+	 * the multiplier used to spread keys over the table (2^64 / golden ratio)
+	 */
+	private static final long SPREAD = 0x9E3779B97F4A7C15L;
+	
+	/**
+	 * Something which can be shown every entry of a LongCountMap
+	 * @author faith
+	 */
+	public interface Visitor {
+		/**
+		 * Looks at a single entry
+		 * @param key the key of the entry
+		 * @param count the count of the entry
+		 */
+		void visit(long key, long count);
+	}
+	
+	/**
+	 * Initializes an empty map
+	 */
+	public LongCountMap() {
+		this(16);
+	}
+	
+	/**
+	 * Initializes an empty map with room for some keys
+	 * @param expected the # of keys to make room for before growing
+	 */
+	public LongCountMap(int expected) {
+		// keep the table at most 3/4 full, in a power-of-two size
+		int capacity = Integer.highestOneBit(Math.max(4, expected * 4 / 3) - 1) << 1;
+		allocate(capacity);
+	}
+	
+	/**
+	 * Sets up empty arrays
+	 * @param capacity the # of slots, a power of two
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		counts = new long[capacity];
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		size = 0;
+	}
+	
+	/**
+	 * Finds the slot a key would be in if there were no collisions
+	 * @param key the key to find
+	 * @return the first slot probed for key
+	 */
+	private int home(long key) {
+		return (int) ((key * SPREAD) >>> shift);
+	}
+	
+	/**
+	 * Finds the slot a key is in, or should go in
+	 * @param key the key to find
+	 * @return the slot holding key, or the empty slot where it belongs
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		// start at the key's hash, and probe forward until the key or a gap is found
+		int i = home(key);
+		while (keys[i] != key && keys[i] != EMPTY) i = (i + 1) & mask;
+		return i;
+	}
+	
+	/**
+	 * Adds to the count of a key, adding the key if it is new
+	 * @param key the key to add to (must not be negative)
+	 * @param delta the amount to add
+	 * @return the new count of the key
+	 */
+	public long add(long key, long delta) {
+		if (key < 0) throw new IllegalArgumentException("Negative key: " + key);
+		
+		int i = slot(key);
+		// a new key takes the empty slot, growing the table if that made it too full
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			counts[i] = delta;
+			if (++size > keys.length / 4 * 3) grow();
+			return delta;
+		}
+		return counts[i] += delta;
+	}
+	
+	/**
+	 * Sets the count of a key, adding the key if it is new
+	 * @param key the key to set (must not be negative)
+	 * @param count the new count
+	 */
+	public void put(long key, long count) {
+		if (key < 0) throw new IllegalArgumentException("Negative key: " + key);
+		
+		int i = slot(key);
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			counts[i] = count;
+			if (++size > keys.length / 4 * 3) grow();
+		}
+		else counts[i] = count;
+	}
+	
+	/**
+	 * Gets the count of a key
+	 * @param key the key to look up
+	 * @return the count of the key, or 0 if it is not in this map
+	 */
+	public long get(long key) {
+		if (key < 0) return 0;
+		int i = slot(key);
+		return keys[i] == EMPTY ? 0 : counts[i];
+	}
+	
+	/**
+	 * Checks for a key
+	 * @param key the key to look up
+	 * @return whether the key is in this map
+	 */
+	public boolean containsKey(long key) {
+		return key >= 0 && keys[slot(key)] != EMPTY;
+	}
+	
+	/**
+	 * Removes a key
+	 * @param key the key to remove
+	 * @return the count the key had, or 0 if it was not in this map
+	 */
+	public long remove(long key) {
+		if (key < 0) return 0;
+		int i = slot(key);
+		if (keys[i] == EMPTY) return 0;
+		long removed = counts[i];
+		
+		// shift later keys of the same run back into the gap, so no probe stops short of them
+		int mask = keys.length - 1;
+		for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+			// a key can fill the gap unless its home lies (cyclically) after the gap, up to itself
+			int home = home(keys[j]);
+			boolean between = i < j ? (home > i && home <= j) : (home > i || home <= j);
+			if (!between) {
+				keys[i] = keys[j];
+				counts[i] = counts[j];
+				i = j;
+			}
+		}
+		keys[i] = EMPTY;
+		counts[i] = 0;
+		--size;
+		return removed;
+	}
+	
+	/**
+	 * Doubles the table, re-placing every key
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldCounts = counts;
+		allocate(oldKeys.length * 2);
+		// every key is distinct, so each just goes in its new slot
+		for (int i = 0; i < oldKeys.length; ++i) if (oldKeys[i] != EMPTY) {
+			int j = slot(oldKeys[i]);
+			keys[j] = oldKeys[i];
+			counts[j] = oldCounts[i];
+			++size;
+		}
+	}
+	
+	/**
+	 * Shows every entry to a Visitor, in no particular order
+	 * @param visitor the Visitor to show entries to
+	 */
+	public void forEach(Visitor visitor) {
+		for (int i = 0; i < keys.length; ++i)
+			if (keys[i] != EMPTY) visitor.visit(keys[i], counts[i]);
+	}
+	
+	/**
+	 * Adds every count from another map into this one
+	 * @param other the map to merge in
+	 */
+	public void merge(LongCountMap other) {
+		for (int i = 0; i < other.keys.length; ++i)
+			if (other.keys[i] != EMPTY) add(other.keys[i], other.counts[i]);
+	}
+	
+	/**
+	 * Removes every key
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		Arrays.fill(counts, 0);
+		size = 0;
+	}
+	
+	/**
+	 * Getter for this.size
+	 * @return the # of distinct keys in this map
+	 */
+	public int getSize() {return size;}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package puzzleHelp;
+
+// for growing the arrays
+import java.util.Arrays;
+
+/**
+ * A list of letter pairs and their counts, kept in primitive arrays
+ * @author faith
+ */
+public final class PairList {
+	/**
+	 * the first letter of each pair
+	 */
+	private char[] from;
+	/**
+	 * the second letter of each pair
+	 */
+	private char[] to;
+	/**
+	 * the count of each pair
+	 */
+	private long[] counts;
+	/**
+	 * the # of pairs
+	 */
+	private int size;
+	
+	/**
+	 * Initializes an empty list
+	 * @param capacity the # of pairs to make room for
+	 */
+	public PairList(int capacity) {
+		from = new char[Math.max(1, capacity)];
+		to = new char[from.length];
+		counts = new long[from.length];
+		size = 0;
+	}
+	
+	/**
+	 * Makes a list of the items of a TopK, which must be packed pairs
+	 * @param top the TopK to copy (sorted first, if it was not already)
+	 * @return the pairs, highest count first
+	 */
+	public static PairList of(TopK top) {
+		top.sort();
+		PairList list = new PairList(top.getSize());
+		for (int i = 0; i < top.getSize(); ++i) list.add(top.getItem(i), top.getCount(i));
+		return list;
+	}
+	
+	/**
+	 * Packs a pair into a single item
+	 * @param from the first letter
+	 * @param to the second letter
+	 * @return the pair, with from in the upper 16 bits
+	 */
+	public static long pack(char from, char to) {
+		return ((long) from << 16) | to;
+	}
+	
+	/**
+	 * Adds a pair packed by pack(from, to)
+	 * @param pair the packed pair
+	 * @param count the count of the pair
+	 */
+	public void add(long pair, long count) {
+		add((char) (pair >>> 16), (char) pair, count);
+	}
+	
+	/**
+	 * Adds a pair
+	 * @param first the first letter
+	 * @param second the second letter
+	 * @param count the count of the pair
+	 */
+	public void add(char first, char second, long count) {
+		// make room if needed
+		if (size == counts.length) {
+			from = Arrays.copyOf(from, size * 2);
+			to = Arrays.copyOf(to, size * 2);
+			counts = Arrays.copyOf(counts, size * 2);
+		}
+		from[size] = first;
+		to[size] = second;
+		counts[size++] = count;
+	}
+	
+	/**
+	 * Getter for this.size
+	 * @return the # of pairs
+	 */
+	public int getSize() {return size;}
+	
+	/**
+	 * @param i the index of the pair
+	 * @return the first letter of the pair
+	 */
+	public char getFrom(int i) {return from[check(i)];}
+	
+	/**
+	 * @param i the index of the pair
+	 * @return the second letter of the pair
+	 */
+	public char getTo(int i) {return to[check(i)];}
+	
+	/**
+	 * @param i the index of the pair
+	 * @return the count of the pair
+	 */
+	public long getCount(int i) {return counts[check(i)];}
+	
+	/**
+	 * Checks that a pair exists
+	 * @param i the index of the pair
+	 * @return i, if it is valid
+	 */
+	private int check(int i) {
+		if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Invalid pair index: " + i);
+		return i;
+	}
+	
+	public String toString() {
+		StringBuilder str = new StringBuilder("[");
+		for (int i = 0; i < size; ++i) {
+			if (i > 0) str.append(", ");
+			str.append(from[i]).append(to[i]).append('(').append(counts[i]).append(')');
+		}
+		return str.append(']').toString();
+	}
+}
\ No newline at end of file
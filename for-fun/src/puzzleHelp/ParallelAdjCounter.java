@@ -0,0 +1,280 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// for splitting work across threads
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// for mapping files into memory
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts letter adjacencies on a ForkJoinPool
+ * <br>
+ * Every worker thread counts into its own AdjMatrix, so counting needs no locking,
+ * and the matrices are merged once all words are counted
+ * @author faith
+ */
+public class ParallelAdjCounter {
+	/**
+	 * the pool to run counting tasks on
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * how pairs are counted
+	 */
+	private final AdjMatrix.Mode mode;
+	/**
+	 * every worker's matrix, for merging at the end
+	 */
+	private final Queue<AdjMatrix> tables;
+	/**
+	 * the matrix of the current worker thread
+	 */
+	private final ThreadLocal<AdjMatrix> table;
+	
+	/**
+	 * the most words counted by one task before it splits
+	 */
+	public static final int WORDS_PER_TASK = 4096;
+	/**
+	 * the most bytes read by one task before it splits
+	 */
+	public static final int BYTES_PER_TASK = 1 << 20;
+	
+	/**
+	 * Initializes a counter with no counts
+	 * @param mode how pairs are counted
+	 * @param pool the pool to run counting tasks on
+	 */
+	private ParallelAdjCounter(AdjMatrix.Mode mode, ForkJoinPool pool) {
+		this.mode = mode;
+		this.pool = pool;
+		tables = new ConcurrentLinkedQueue<AdjMatrix>();
+		// each thread makes (and registers) its own matrix the first time it counts
+		table = ThreadLocal.withInitial(() -> {
+			AdjMatrix matrix = new AdjMatrix(mode);
+			tables.add(matrix);
+			return matrix;
+		});
+	}
+	
+	/**
+	 * Counts letter adjacencies of a list of words on the common pool
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @return the completed letter-count matrix
+	 */
+	public static AdjMatrix count(List<char[]> words) {
+		return count(words, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Counts letter adjacencies of a list of words
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @param pool the pool to count on
+	 * @return the completed letter-count matrix
+	 */
+	public static AdjMatrix count(List<char[]> words, ForkJoinPool pool) {
+		return count(words, AdjMatrix.Mode.SYMMETRIC, pool);
+	}
+	
+	/**
+	 * Counts letter adjacencies of a list of words
+	 * @param words the words (converted to char arrays) to find adjacent letters from
+	 * @param mode how pairs are counted
+	 * @param pool the pool to count on
+	 * @return the completed letter-count matrix
+	 */
+	public static AdjMatrix count(List<char[]> words, AdjMatrix.Mode mode, ForkJoinPool pool) {
+		ParallelAdjCounter counter = new ParallelAdjCounter(mode, pool);
+		counter.pool.invoke(counter.new ListTask(words, 0, words.size()));
+		return counter.merge();
+	}
+	
+	/**
+	 * Counts letter adjacencies of a UTF-8 word file on the common pool
+	 * @param file the file to read
+	 * @return the completed letter-count matrix
+	 * @throws IOException if the file cannot be read
+	 */
+	public static AdjMatrix count(Path file) throws IOException {
+		return count(file, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Counts letter adjacencies of a UTF-8 word file, splitting the mapped file on word boundaries
+	 * @param file the file to read
+	 * @param pool the pool to count on
+	 * @return the completed letter-count matrix
+	 * @throws IOException if the file cannot be read
+	 */
+	public static AdjMatrix count(Path file, ForkJoinPool pool) throws IOException {
+		return count(file, AdjMatrix.Mode.SYMMETRIC, pool);
+	}
+	
+	/**
+	 * Counts letter adjacencies of a UTF-8 word file, splitting the mapped file on word boundaries
+	 * @param file the file to read
+	 * @param mode how pairs are counted
+	 * @param pool the pool to count on
+	 * @return the completed letter-count matrix
+	 * @throws IOException if the file cannot be read
+	 */
+	public static AdjMatrix count(Path file, AdjMatrix.Mode mode, ForkJoinPool pool) throws IOException {
+		ParallelAdjCounter counter = new ParallelAdjCounter(mode, pool);
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long pos = 0;
+			// map and count the file a chunk at a time
+			while (pos < size) {
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+						Math.min(WordReader.CHUNK, size - pos));
+				// unless this is the last chunk, stop after its last whitespace so no word is cut
+				int end = buf.limit();
+				if (pos + end < size) {
+					end = lastBreak(buf, 0, end);
+					if (end == 0)
+						throw new IOException("Word longer than " + WordReader.CHUNK + " bytes in " + file);
+				}
+				counter.pool.invoke(counter.new ByteTask(buf, 0, end));
+				pos += end;
+			}
+		}
+		
+		return counter.merge();
+	}
+	
+	/**
+	 * Combines the matrices of all workers
+	 * @return the total counts
+	 */
+	private AdjMatrix merge() {
+		AdjMatrix total = new AdjMatrix(mode);
+		for (AdjMatrix part : tables) total.merge(part);
+		return total;
+	}
+	
+	/**
+	 * Checks if a byte separates words
+	 * @param b the byte to check
+	 * @return whether b is ASCII whitespace (which is never part of a longer UTF-8 character)
+	 */
+	private static boolean isBreak(byte b) {
+		return b >= 0 && b <= ' ' && Character.isWhitespace(b);
+	}
+	
+	/**
+	 * Finds the end of the last whole word in a range
+	 * @param buf the bytes to search
+	 * @param from the index of the first byte of the range
+	 * @param to the index after the last byte of the range
+	 * @return the index after the last whitespace byte in the range, or from if there is none
+	 */
+	private static int lastBreak(ByteBuffer buf, int from, int to) {
+		for (int i = to - 1; i >= from; --i) if (isBreak(buf.get(i))) return i + 1;
+		return from;
+	}
+	
+	/**
+	 * A task counting a range of a list of words
+	 * @author faith
+	 */
+	@SuppressWarnings("serial")
+	private class ListTask extends RecursiveAction {
+		/**
+		 * the words to count from
+		 */
+		private final List<char[]> words;
+		/**
+		 * the index of the first word to count
+		 */
+		private final int from;
+		/**
+		 * the index after the last word to count
+		 */
+		private final int to;
+		
+		/**
+		 * Initializes a task for a range of words
+		 * @param words the words to count from
+		 * @param from the index of the first word to count
+		 * @param to the index after the last word to count
+		 */
+		public ListTask(List<char[]> words, int from, int to) {
+			this.words = words;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute() {
+			// if the range is big, split it in half
+			if (to - from > WORDS_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ListTask(words, from, mid), new ListTask(words, mid, to));
+			}
+			// otherwise count it into this thread's matrix
+			else {
+				AdjMatrix matrix = table.get();
+				for (int i = from; i < to; ++i) matrix.addWord(words.get(i));
+			}
+		}
+	}
+	
+	/**
+	 * A task counting a range of mapped bytes which starts and ends on word boundaries
+	 * @author faith
+	 */
+	@SuppressWarnings("serial")
+	private class ByteTask extends RecursiveAction {
+		/**
+		 * the bytes to count from
+		 */
+		private final ByteBuffer buf;
+		/**
+		 * the index of the first byte to count
+		 */
+		private final int from;
+		/**
+		 * the index after the last byte to count
+		 */
+		private final int to;
+		
+		/**
+		 * Initializes a task for a range of bytes
+		 * @param buf the bytes to count from
+		 * @param from the index of the first byte to count
+		 * @param to the index after the last byte to count
+		 */
+		public ByteTask(ByteBuffer buf, int from, int to) {
+			this.buf = buf;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute() {
+			// if the range is big, try to split it just after a whitespace near the middle
+			if (to - from > BYTES_PER_TASK) {
+				int mid = lastBreak(buf, from, (from + to) >>> 1);
+				if (mid > from) {
+					invokeAll(new ByteTask(buf, from, mid), new ByteTask(buf, mid, to));
+					return;
+				}
+			}
+			
+			// otherwise (or if there is no whitespace to split on) count it into this thread's matrix
+			WordReader reader = new WordReader(table.get());
+			reader.feed(buf, from, to);
+			reader.finish();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package puzzleHelp;
+
+// for writing and reading shard files
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts k-grams of corpora too big for memory, by spilling them to disk in shards
+ * <br>
+ * Counting happens in two passes:
+ * <ul>
+ * 	<li>while words are added, each packed gram is hashed to one of a fixed # of shards and appended
+ * 		to that shard's buffer, which is written to the shard's file whenever it fills</li>
+ * 	<li>then each shard file is read back and counted on its own in a LongCountMap</li>
+ * </ul>
+ * Every occurrence of a gram lands in the same shard, so each shard's counts are already final;
+ * memory is bounded by the buffers while adding and by the largest shard's distinct grams while
+ * counting, and the I/O is one sequential write and one sequential read of 8 bytes per gram
+ * @author faith
+ */
+public class ShardedKGramCounter implements WordSink, AutoCloseable {
+	/**
+	 * the # of letters in each counted gram
+	 */
+	private final int k;
+	/**
+	 * the numbering of the letters counted so far
+	 */
+	private final Alphabet alphabet;
+	/**
+	 * the # of bits each letter takes up in a key
+	 */
+	private final int bits;
+	/**
+	 * the mask keeping only the bits of the last k letters of a key
+	 */
+	private final long mask;
+	/**
+	 * the file of each shard
+	 */
+	private final Path[] files;
+	/**
+	 * the open channel of each shard's file (null once closed)
+	 */
+	private final FileChannel[] channels;
+	/**
+	 * the keys of each shard not yet written
+	 */
+	private final ByteBuffer[] buffers;
+	/**
+	 * the # of grams added
+	 */
+	private long grams;
+	
+	/**
+	 * the default # of bytes buffered per shard
+	 */
+	public static final int BUFFER = 1 << 16;
+	
+	/**
+	 * Initializes a counter with an Alphabet as big as the key allows
+	 * @param k the # of letters in each gram
+	 * @param dir the directory to keep shard files in
+	 * @param shards the # of shards to split grams between
+	 * @param buffer the # of bytes to buffer per shard
+	 * @throws IOException if the shard files cannot be made
+	 */
+	public ShardedKGramCounter(int k, Path dir, int shards, int buffer) throws IOException {
+		this(k, new Alphabet(1 << Math.min(16, KGramCounter.KEY_BITS / Math.max(1, k))), dir, shards, buffer);
+	}
+	
+	/**
+	 * Initializes a counter using a given numbering of letters
+	 * @param k the # of letters in each gram
+	 * @param alphabet the Alphabet to index by (will be added to if new letters are seen)
+	 * @param dir the directory to keep shard files in
+	 * @param shards the # of shards to split grams between
+	 * @param buffer the # of bytes to buffer per shard (rounded down to whole keys)
+	 * @throws IOException if the shard files cannot be made
+	 */
+	public ShardedKGramCounter(int k, Alphabet alphabet, Path dir, int shards, int buffer) throws IOException {
+		// check for argument validity
+		if (k <= 0 || k > KGramCounter.KEY_BITS)
+			throw new IllegalArgumentException("Invalid gram length: " + k);
+		if (shards <= 0) throw new IllegalArgumentException("Invalid # of shards: " + shards);
+		if (buffer < 8) throw new IllegalArgumentException("Shard buffer of " + buffer + " bytes is too small");
+		
+		this.k = k;
+		this.alphabet = alphabet;
+		bits = KGramCounter.bitsFor(alphabet.getCapacity());
+		// check that k letters fit in a key
+		if (bits * k > KGramCounter.KEY_BITS)
+			throw new IllegalArgumentException(k + "-grams of " + bits + "-bit letters do not fit in a key");
+		mask = (1L << (bits * k)) - 1;
+		grams = 0;
+		
+		// make every shard's file and buffer up front
+		files = new Path[shards];
+		channels = new FileChannel[shards];
+		buffers = new ByteBuffer[shards];
+		try {
+			for (int i = 0; i < shards; ++i) {
+				files[i] = Files.createTempFile(dir, "kgram-shard" + i + "-", ".tmp");
+				channels[i] = FileChannel.open(files[i], StandardOpenOption.WRITE);
+				buffers[i] = ByteBuffer.allocateDirect(buffer & ~7);
+			}
+		}
+		catch (IOException e) {
+			// don't leave the shards made so far lying around
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Counts the k-grams of a UTF-8 word file
+	 * @param file the file to read
+	 * @param k the # of letters in each gram
+	 * @param shards the # of shards to split grams between (kept next to the file while counting)
+	 * @param visitor the Visitor to show every gram and its count to (unpack with the returned counter)
+	 * @return the (closed) counter, for unpacking keys
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static ShardedKGramCounter count(Path file, int k, int shards, LongCountMap.Visitor visitor)
+			throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		try (ShardedKGramCounter counter = new ShardedKGramCounter(k, dir, shards, BUFFER)) {
+			WordReader.read(file, counter);
+			counter.forEach(visitor);
+			return counter;
+		}
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		// the key of the most recent letters, and how many letters it holds
+		long key = 0;
+		int held = 0;
+		// slide along the word, spilling a gram once k letters are held
+		for (int i = off; i < off + len; ++i) {
+			key = ((key << bits) | indexFor(buf[i])) & mask;
+			if (++held >= k) spill(key);
+		}
+	}
+	
+	/**
+	 * Appends a gram to its shard
+	 * @param key the key of the gram
+	 */
+	private void spill(long key) {
+		int shard = shardOf(key);
+		ByteBuffer buffer = buffers[shard];
+		if (channels[shard] == null) throw new IllegalStateException("Counter has already been counted");
+		// WordSink cannot throw IOException, so pass failures on unchecked
+		try {
+			if (!buffer.hasRemaining()) write(shard);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.putLong(key);
+		++grams;
+	}
+	
+	/**
+	 * Writes out everything buffered for a shard
+	 * @param shard the shard to write
+	 * @throws IOException if the shard file cannot be written
+	 */
+	private void write(int shard) throws IOException {
+		ByteBuffer buffer = buffers[shard];
+		buffer.flip();
+		while (buffer.hasRemaining()) channels[shard].write(buffer);
+		buffer.clear();
+	}
+	
+	/**
+	 * Picks the shard of a gram
+	 * @param key the key of the gram
+	 * @return the shard every occurrence of the gram goes to
+	 */
+	private int shardOf(long key) {
+		// scramble the key differently from LongCountMap, so each shard's keys still spread over its table
+		long hash = (key ^ (key >>> 31)) * 0xBF58476D1CE4E5B9L;
+		return (int) (((hash >>> 32) * files.length) >>> 32);
+	}
+	
+	/**
+	 * Gets the index of a letter, adding it to the Alphabet if it is new
+	 * @param letter the letter to look up
+	 * @return the index of the letter
+	 */
+	private int indexFor(char letter) {
+		int index = alphabet.add(letter);
+		if (index < 0)
+			throw new IllegalStateException("Too many distinct letters for " + bits + "-bit keys (at '"
+					+ letter + "')");
+		return index;
+	}
+	
+	/**
+	 * Counts every shard in turn, showing each gram to a Visitor once
+	 * <br>
+	 * No more words can be added afterwards, and the shard files are deleted as they are counted
+	 * @param visitor the Visitor to show packed grams and their counts to, shard by shard
+	 * @throws IOException if a shard file cannot be written or read
+	 */
+	public void forEach(LongCountMap.Visitor visitor) throws IOException {
+		LongCountMap counts = new LongCountMap();
+		for (int shard = 0; shard < files.length; ++shard) {
+			if (channels[shard] == null) throw new IllegalStateException("Counter has already been counted");
+			// finish writing the shard, then read it back through its own buffer
+			write(shard);
+			channels[shard].close();
+			channels[shard] = null;
+			
+			ByteBuffer buffer = buffers[shard];
+			try (FileChannel in = FileChannel.open(files[shard], StandardOpenOption.READ)) {
+				while (in.read(buffer) >= 0) {
+					buffer.flip();
+					while (buffer.remaining() >= 8) counts.add(buffer.getLong(), 1);
+					// a read may end partway through a key, so keep that part for the next read
+					buffer.compact();
+				}
+			}
+			if (buffer.position() > 0) throw new IOException("Truncated shard file: " + files[shard]);
+			Files.delete(files[shard]);
+			buffer.clear();
+			
+			counts.forEach(visitor);
+			counts.clear();
+		}
+	}
+	
+	/**
+	 * Deletes all shard files which have not been counted yet
+	 * @throws IOException if a shard file cannot be deleted
+	 */
+	public void close() throws IOException {
+		for (int shard = 0; shard < files.length; ++shard) {
+			if (channels[shard] != null) {
+				channels[shard].close();
+				channels[shard] = null;
+			}
+			if (files[shard] != null) Files.deleteIfExists(files[shard]);
+		}
+	}
+	
+	/**
+	 * Unpacks a key into its gram
+	 * @param key the key to unpack
+	 * @return the k letters packed into key
+	 */
+	public String unpack(long key) {
+		return KGramCounter.unpack(key, k, bits, alphabet);
+	}
+	
+	/**
+	 * Packs a gram into a key
+	 * @param gram the k letters to pack
+	 * @return the key for gram, or -1 if any of its letters have never been counted
+	 */
+	public long pack(CharSequence gram) {
+		return KGramCounter.pack(gram, k, bits, alphabet);
+	}
+	
+	/**
+	 * Getter for this.k
+	 * @return the # of letters in each counted gram
+	 */
+	public int getK() {return k;}
+	
+	/**
+	 * Getter for this.grams
+	 * @return the # of grams added (counting repeats)
+	 */
+	public long getGrams() {return grams;}
+	
+	/**
+	 * Gets the # of shards
+	 * @return the # of shard files grams are split between
+	 */
+	public int getShards() {return files.length;}
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package puzzleHelp;
+
+/**
+ * Keeps the k items with the highest counts out of any # offered, in a bounded min-heap
+ * of primitive arrays
+ * <br>
+ * Items are longs (such as packed letter pairs or k-gram keys); offering allocates nothing
+ * @author faith
+ */
+public class TopK {
+	/**
+	 * the items kept so far, as a heap with the lowest count at the root (until sorted)
+	 */
+	private final long[] items;
+	/**
+	 * the counts of the items kept so far, matching items
+	 */
+	private final long[] counts;
+	/**
+	 * the # of items kept so far
+	 */
+	private int size;
+	/**
+	 * whether the items have been sorted (and so are no longer a heap)
+	 */
+	private boolean sorted;
+	
+	/**
+	 * Initializes an empty TopK
+	 * @param k the most items to keep
+	 */
+	public TopK(int k) {
+		if (k < 0) throw new IllegalArgumentException("Invalid k: " + k);
+		items = new long[k];
+		counts = new long[k];
+		size = 0;
+		sorted = false;
+	}
+	
+	/**
+	 * Offers an item, which is kept if it is among the k highest counts so far
+	 * @param item the item
+	 * @param count the count of the item
+	 */
+	public void offer(long item, long count) {
+		if (sorted) throw new IllegalStateException("Cannot offer once sorted");
+		
+		// while there is room, just add to the heap
+		if (size < items.length) {
+			items[size] = item;
+			counts[size] = count;
+			siftUp(size++);
+		}
+		// once full, only replace the lowest count if this one is higher
+		else if (size > 0 && count > counts[0]) {
+			items[0] = item;
+			counts[0] = count;
+			siftDown(0, size);
+		}
+	}
+	
+	/**
+	 * Sorts the kept items, highest count first (no more items can be offered after)
+	 * @return this TopK
+	 */
+	public TopK sort() {
+		if (!sorted) {
+			// heap-sort: repeatedly move the lowest count to the end
+			for (int end = size - 1; end > 0; --end) {
+				swap(0, end);
+				siftDown(0, end);
+			}
+			sorted = true;
+		}
+		return this;
+	}
+	
+	/**
+	 * Moves an entry up the heap until its parent is no higher
+	 * @param i the index of the entry
+	 */
+	private void siftUp(int i) {
+		while (i > 0 && counts[(i - 1) / 2] > counts[i]) {
+			swap(i, (i - 1) / 2);
+			i = (i - 1) / 2;
+		}
+	}
+	
+	/**
+	 * Moves an entry down the heap until its children are no lower
+	 * @param i the index of the entry
+	 * @param end the # of entries in the heap
+	 */
+	private void siftDown(int i, int end) {
+		while (2 * i + 1 < end) {
+			// find the lower child
+			int child = 2 * i + 1;
+			if (child + 1 < end && counts[child + 1] < counts[child]) ++child;
+			if (counts[i] <= counts[child]) return;
+			swap(i, child);
+			i = child;
+		}
+	}
+	
+	/**
+	 * Swaps two entries
+	 * @param i the index of one entry
+	 * @param j the index of the other entry
+	 */
+	private void swap(int i, int j) {
+		long item = items[i];
+		items[i] = items[j];
+		items[j] = item;
+		long count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+	}
+	
+	/**
+	 * Getter for this.size
+	 * @return the # of items kept
+	 */
+	public int getSize() {return size;}
+	
+	/**
+	 * Gets a kept item
+	 * @param i the rank of the item (0 is the highest count, once sorted)
+	 * @return the item
+	 */
+	public long getItem(int i) {
+		if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Invalid rank: " + i);
+		return items[i];
+	}
+	
+	/**
+	 * Gets the count of a kept item
+	 * @param i the rank of the item (0 is the highest count, once sorted)
+	 * @return the count of the item
+	 */
+	public long getCount(int i) {
+		if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Invalid rank: " + i);
+		return counts[i];
+	}
+}
\ No newline at end of file
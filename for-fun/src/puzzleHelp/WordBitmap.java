@@ -0,0 +1,439 @@
+package puzzleHelp;
+
+// for the data structures used
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of word ids (non-negative ints), split Roaring-style into containers of 2^16 ids
+ * which share their high 16 bits
+ * <br>
+ * A container holding few ids is a sorted array of their low 16 bits (2 bytes per id), and one
+ * holding more than ARRAY_MAX ids is a bitmap of all 2^16 (8 KB, however full), so sparse and dense
+ * sets are both small, and AND/OR work a container at a time without ever expanding to single ids
+ * @author faith
+ */
+public final class WordBitmap {
+	/**
+	 * the high 16 bits of the ids in each container, in increasing order
+	 */
+	private char[] keys;
+	/**
+	 * the # of ids in each container
+	 */
+	private int[] cardinalities;
+	/**
+	 * the sorted low 16 bits of each array container (null for a bitmap container)
+	 */
+	private char[][] arrays;
+	/**
+	 * the bits of each bitmap container (null for an array container)
+	 */
+	private long[][] bitmaps;
+	/**
+	 * the # of containers
+	 */
+	private int size;
+	
+	/**
+	 * the most ids an array container holds before it becomes a bitmap
+	 */
+	public static final int ARRAY_MAX = 1 << 12;
+	/**
+	 * the # of longs in a bitmap container
+	 */
+	private static final int BITMAP_WORDS = 1 << 10;
+	
+	/**
+	 * Initializes an empty set
+	 */
+	public WordBitmap() {
+		this(4);
+	}
+	
+	/**
+	 * Initializes an empty set with room for some containers
+	 * @param capacity the # of containers to make room for
+	 */
+	private WordBitmap(int capacity) {
+		keys = new char[Math.max(1, capacity)];
+		cardinalities = new int[keys.length];
+		arrays = new char[keys.length][];
+		bitmaps = new long[keys.length][];
+		size = 0;
+	}
+	
+	/**
+	 * Makes a set of some ids
+	 * @param ids the ids to include
+	 * @return a new set holding exactly those ids
+	 */
+	public static WordBitmap of(int... ids) {
+		WordBitmap set = new WordBitmap();
+		for (int id : ids) set.add(id);
+		return set;
+	}
+	
+	/**
+	 * Adds an id (fastest when ids are added in increasing order)
+	 * @param id the id to add
+	 * @return whether the id was new
+	 */
+	public boolean add(int id) {
+		if (id < 0) throw new IllegalArgumentException("Negative id: " + id);
+		
+		char key = (char) (id >>> 16);
+		char low = (char) id;
+		int i = find(key);
+		if (i < 0) {
+			i = -i - 1;
+			insert(i, key);
+		}
+		
+		// bitmap containers just set the bit
+		if (bitmaps[i] != null) {
+			long[] bits = bitmaps[i];
+			long bit = 1L << low;
+			if ((bits[low >>> 6] & bit) != 0) return false;
+			bits[low >>> 6] |= bit;
+			++cardinalities[i];
+			return true;
+		}
+		
+		// array containers are sorted, but ids mostly arrive in order, so check past the end first
+		char[] array = arrays[i];
+		int count = cardinalities[i];
+		int at = count == 0 || array[count - 1] < low ? -count - 1 : Arrays.binarySearch(array, 0, count, low);
+		if (at >= 0) return false;
+		at = -at - 1;
+		
+		// a full array becomes a bitmap
+		if (count == ARRAY_MAX) {
+			long[] bits = toBitmap(array, count);
+			bits[low >>> 6] |= 1L << low;
+			bitmaps[i] = bits;
+			arrays[i] = null;
+		}
+		else {
+			if (count == array.length) arrays[i] = array = Arrays.copyOf(array, Math.min(ARRAY_MAX, count * 2));
+			System.arraycopy(array, at, array, at + 1, count - at);
+			array[at] = low;
+		}
+		++cardinalities[i];
+		return true;
+	}
+	
+	/**
+	 * Checks for an id
+	 * @param id the id to look up
+	 * @return whether the id is in this set
+	 */
+	public boolean contains(int id) {
+		if (id < 0) return false;
+		int i = find((char) (id >>> 16));
+		if (i < 0) return false;
+		char low = (char) id;
+		if (bitmaps[i] != null) return (bitmaps[i][low >>> 6] & (1L << low)) != 0;
+		return Arrays.binarySearch(arrays[i], 0, cardinalities[i], low) >= 0;
+	}
+	
+	/**
+	 * Copies this set
+	 * @return a new set of the same ids
+	 */
+	public WordBitmap copy() {
+		WordBitmap result = new WordBitmap(size);
+		for (int i = 0; i < size; ++i) result.append(this, i);
+		return result;
+	}
+	
+	/**
+	 * Intersects this set with another
+	 * @param other the other set
+	 * @return a new set of the ids in both sets
+	 */
+	public WordBitmap and(WordBitmap other) {
+		WordBitmap result = new WordBitmap(Math.min(size, other.size));
+		// only containers with a key in both sets can have anything in common
+		for (int i = 0, j = 0; i < size && j < other.size;) {
+			if (keys[i] < other.keys[j]) ++i;
+			else if (keys[i] > other.keys[j]) ++j;
+			else result.and(keys[i], this, i++, other, j++);
+		}
+		return result;
+	}
+	
+	/**
+	 * Unites this set with another
+	 * @param other the other set
+	 * @return a new set of the ids in either set
+	 */
+	public WordBitmap or(WordBitmap other) {
+		WordBitmap result = new WordBitmap(size + other.size);
+		// containers with a key in only one set are copied as they are
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) result.append(this, i++);
+			else if (keys[i] > other.keys[j]) result.append(other, j++);
+			else result.or(keys[i], this, i++, other, j++);
+		}
+		while (i < size) result.append(this, i++);
+		while (j < other.size) result.append(other, j++);
+		return result;
+	}
+	
+	/**
+	 * Appends the intersection of two containers
+	 * @param key the key of both containers
+	 * @param a the set holding the first container
+	 * @param i the index of the first container
+	 * @param b the set holding the second container
+	 * @param j the index of the second container
+	 */
+	private void and(char key, WordBitmap a, int i, WordBitmap b, int j) {
+		// keep the array (if there is one) first
+		if (a.arrays[i] == null && b.arrays[j] != null) {
+			and(key, b, j, a, i);
+			return;
+		}
+		
+		char[] array = a.arrays[i];
+		int count = a.cardinalities[i];
+		// two bitmaps are ANDed a word at a time, and shrunk back to an array if few bits are left
+		if (array == null) {
+			long[] bits = new long[BITMAP_WORDS];
+			int total = 0;
+			for (int w = 0; w < BITMAP_WORDS; ++w)
+				total += Long.bitCount(bits[w] = a.bitmaps[i][w] & b.bitmaps[j][w]);
+			if (total > ARRAY_MAX) append(key, total, null, bits);
+			else append(key, total, toArray(bits, total), null);
+			return;
+		}
+		
+		// an array is filtered by the other container, so the result is never bigger than it
+		char[] both = new char[count];
+		int total = 0;
+		if (b.arrays[j] == null) {
+			long[] bits = b.bitmaps[j];
+			for (int n = 0; n < count; ++n)
+				if ((bits[array[n] >>> 6] & (1L << array[n])) != 0) both[total++] = array[n];
+		}
+		else {
+			char[] other = b.arrays[j];
+			for (int n = 0, m = 0; n < count && m < b.cardinalities[j];) {
+				if (array[n] < other[m]) ++n;
+				else if (array[n] > other[m]) ++m;
+				else {
+					both[total++] = array[n++];
+					++m;
+				}
+			}
+		}
+		append(key, total, both, null);
+	}
+	
+	/**
+	 * Appends the union of two containers
+	 * @param key the key of both containers
+	 * @param a the set holding the first container
+	 * @param i the index of the first container
+	 * @param b the set holding the second container
+	 * @param j the index of the second container
+	 */
+	private void or(char key, WordBitmap a, int i, WordBitmap b, int j) {
+		// keep the bitmap (if there is one) first
+		if (a.bitmaps[i] == null && b.bitmaps[j] != null) {
+			or(key, b, j, a, i);
+			return;
+		}
+		
+		// a bitmap has the other container's bits set in a copy of it
+		if (a.bitmaps[i] != null) {
+			long[] bits = a.bitmaps[i].clone();
+			if (b.bitmaps[j] != null) for (int w = 0; w < BITMAP_WORDS; ++w) bits[w] |= b.bitmaps[j][w];
+			else for (int m = 0; m < b.cardinalities[j]; ++m) bits[b.arrays[j][m] >>> 6] |= 1L << b.arrays[j][m];
+			int total = 0;
+			for (long word : bits) total += Long.bitCount(word);
+			append(key, total, null, bits);
+			return;
+		}
+		
+		// two arrays are merged, and become a bitmap if that made too many
+		char[] array = a.arrays[i];
+		char[] other = b.arrays[j];
+		int count = a.cardinalities[i];
+		int otherCount = b.cardinalities[j];
+		char[] either = new char[count + otherCount];
+		int total = 0;
+		int n = 0;
+		int m = 0;
+		while (n < count && m < otherCount) {
+			if (array[n] < other[m]) either[total++] = array[n++];
+			else if (array[n] > other[m]) either[total++] = other[m++];
+			else {
+				either[total++] = array[n++];
+				++m;
+			}
+		}
+		while (n < count) either[total++] = array[n++];
+		while (m < otherCount) either[total++] = other[m++];
+		if (total > ARRAY_MAX) append(key, total, null, toBitmap(either, total));
+		else append(key, total, either, null);
+	}
+	
+	/**
+	 * Appends a copy of a container
+	 * @param from the set holding the container
+	 * @param i the index of the container
+	 */
+	private void append(WordBitmap from, int i) {
+		append(from.keys[i], from.cardinalities[i],
+				from.arrays[i] == null ? null : Arrays.copyOf(from.arrays[i], from.cardinalities[i]),
+				from.bitmaps[i] == null ? null : from.bitmaps[i].clone());
+	}
+	
+	/**
+	 * Adds a container after every other, unless it is empty
+	 * @param key the high 16 bits of its ids (greater than every other key)
+	 * @param count the # of ids in it
+	 * @param array its sorted low 16 bits, or null if it is a bitmap
+	 * @param bits its bits, or null if it is an array
+	 */
+	private void append(char key, int count, char[] array, long[] bits) {
+		if (count == 0) return;
+		insert(size, key);
+		cardinalities[size - 1] = count;
+		arrays[size - 1] = array;
+		bitmaps[size - 1] = bits;
+	}
+	
+	/**
+	 * Inserts an empty array container
+	 * @param i the index to put it at
+	 * @param key the high 16 bits of its ids
+	 */
+	private void insert(int i, char key) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			cardinalities = Arrays.copyOf(cardinalities, size * 2);
+			arrays = Arrays.copyOf(arrays, size * 2);
+			bitmaps = Arrays.copyOf(bitmaps, size * 2);
+		}
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(cardinalities, i, cardinalities, i + 1, size - i);
+		System.arraycopy(arrays, i, arrays, i + 1, size - i);
+		System.arraycopy(bitmaps, i, bitmaps, i + 1, size - i);
+		keys[i] = key;
+		cardinalities[i] = 0;
+		arrays[i] = new char[4];
+		bitmaps[i] = null;
+		++size;
+	}
+	
+	/**
+	 * Finds the container of a key
+	 * @param key the high 16 bits of an id
+	 * @return the index of its container, or -(insertion point) - 1 if there is none
+	 */
+	private int find(char key) {
+		// ids mostly arrive in order, so try the last container first
+		if (size > 0 && keys[size - 1] == key) return size - 1;
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+	
+	/**
+	 * Converts an array container's ids to bits
+	 * @param array the sorted low 16 bits
+	 * @param count the # of ids in array
+	 * @return the bits of those ids
+	 */
+	private static long[] toBitmap(char[] array, int count) {
+		long[] bits = new long[BITMAP_WORDS];
+		for (int n = 0; n < count; ++n) bits[array[n] >>> 6] |= 1L << array[n];
+		return bits;
+	}
+	
+	/**
+	 * Converts a bitmap container's bits to ids
+	 * @param bits the bits
+	 * @param count the # of bits set
+	 * @return the sorted low 16 bits of those ids
+	 */
+	private static char[] toArray(long[] bits, int count) {
+		char[] array = new char[count];
+		int n = 0;
+		for (int w = 0; w < BITMAP_WORDS; ++w)
+			for (long word = bits[w]; word != 0; word &= word - 1)
+				array[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+		return array;
+	}
+	
+	/**
+	 * Shows every id to a consumer, in increasing order
+	 * @param consumer what to show each id to
+	 */
+	public void forEach(IntConsumer consumer) {
+		for (int i = 0; i < size; ++i) {
+			int high = keys[i] << 16;
+			if (bitmaps[i] == null) for (int n = 0; n < cardinalities[i]; ++n) consumer.accept(high | arrays[i][n]);
+			else for (int w = 0; w < BITMAP_WORDS; ++w)
+				for (long word = bitmaps[i][w]; word != 0; word &= word - 1)
+					consumer.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+		}
+	}
+	
+	/**
+	 * Lists every id
+	 * @return the ids in this set, in increasing order
+	 */
+	public int[] toArray() {
+		int[] ids = new int[getCardinality()];
+		int[] n = new int[1];
+		forEach(id -> ids[n[0]++] = id);
+		return ids;
+	}
+	
+	/**
+	 * Shrinks every array to fit, once no more ids will be added
+	 */
+	public void trim() {
+		keys = Arrays.copyOf(keys, Math.max(1, size));
+		cardinalities = Arrays.copyOf(cardinalities, keys.length);
+		arrays = Arrays.copyOf(arrays, keys.length);
+		bitmaps = Arrays.copyOf(bitmaps, keys.length);
+		for (int i = 0; i < size; ++i) if (arrays[i] != null) arrays[i] = Arrays.copyOf(arrays[i], cardinalities[i]);
+	}
+	
+	/**
+	 * Counts the ids
+	 * @return the # of ids in this set
+	 */
+	public int getCardinality() {
+		int total = 0;
+		for (int i = 0; i < size; ++i) total += cardinalities[i];
+		return total;
+	}
+	
+	/**
+	 * Checks for ids
+	 * @return whether this set has no ids
+	 */
+	public boolean isEmpty() {return size == 0;}
+	
+	/**
+	 * Estimates the memory used by the containers' contents
+	 * @return the # of bytes of ids and bits held
+	 */
+	public long getBytes() {
+		long bytes = 0;
+		for (int i = 0; i < size; ++i) bytes += arrays[i] == null ? BITMAP_WORDS * 8L : arrays[i].length * 2L;
+		return bytes;
+	}
+	
+	public String toString() {
+		StringBuilder string = new StringBuilder("[");
+		forEach(id -> string.append(string.length() > 1 ? ", " : "").append(id));
+		return string.append(']').toString();
+	}
+}
\ No newline at end of file
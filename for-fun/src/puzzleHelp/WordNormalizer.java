@@ -0,0 +1,155 @@
+package puzzleHelp;
+
+// for working out which letters carry accents
+import java.text.Normalizer;
+
+/**
+ * Normalizes words on their way to another WordSink, so that variants of a letter are counted as one
+ * <br>
+ * Each letter of a word can be
+ * <ul>
+ * 	<li>case folded, so "A" and "a" are the same letter</li>
+ * 	<li>stripped of accents, so "&eacute;" is "e" (and combining accent marks are dropped)</li>
+ * 	<li>filtered by an Alphabet, so any letter outside it splits the word in two ("don't" is "don"
+ * 		and "t")</li>
+ * </ul>
+ * Folding and stripping are single lookups in tables built once for every char, and words are
+ * normalized into one reusable buffer, so nothing is made per word
+ * @author faith
+ * @param <S> the type of sink normalized words go to
+ */
+public class WordNormalizer<S extends WordSink> implements WordSink {
+	/**
+	 * where normalized words go
+	 */
+	private final S sink;
+	/**
+	 * whether to fold letters to lower case
+	 */
+	private final boolean foldCase;
+	/**
+	 * whether to strip accents from letters
+	 */
+	private final boolean stripAccents;
+	/**
+	 * the letters words may have, or null to keep every letter
+	 */
+	private final Alphabet keep;
+	/**
+	 * the letters of the word being normalized
+	 */
+	private char[] word;
+	
+	/**
+	 * what BASE holds for chars which are only accents (a noncharacter, so never real text)
+	 */
+	private static final char DROPPED = '\uFFFF';
+	/**
+	 * pairs of letters with a stroke or bar, which have no decomposition to strip, and their bases
+	 */
+	private static final String UNDECOMPOSED = "\u00D8O\u00F8o\u0141L\u0142l\u0110D\u0111d\u0126H\u0127h"
+			+ "\u0131i\u0166T\u0167t";
+	/**
+	 * the letters kept by latin
+	 */
+	public static final String LATIN = "abcdefghijklmnopqrstuvwxyz";
+	/**
+	 * the lower case of every char
+	 */
+	private static final char[] LOWER = lowerTable();
+	/**
+	 * every char without its accent (or DROPPED, for accents on their own)
+	 */
+	private static final char[] BASE = baseTable();
+	
+	/**
+	 * Initializes a normalizer
+	 * @param sink where to send normalized words
+	 * @param foldCase whether to fold letters to lower case
+	 * @param stripAccents whether to strip accents from letters
+	 * @param keep the letters words may have (checked after folding and stripping), or null to keep every
+	 * letter
+	 */
+	public WordNormalizer(S sink, boolean foldCase, boolean stripAccents, Alphabet keep) {
+		this.sink = sink;
+		this.foldCase = foldCase;
+		this.stripAccents = stripAccents;
+		this.keep = keep;
+		word = new char[64];
+	}
+	
+	/**
+	 * Makes a normalizer which folds case and strips accents, and splits words at anything else
+	 * outside a to z
+	 * @param <S> the type of sink normalized words go to
+	 * @param sink where to send normalized words
+	 * @return the normalizer
+	 */
+	public static <S extends WordSink> WordNormalizer<S> latin(S sink) {
+		return new WordNormalizer<S>(sink, true, true, new Alphabet(LATIN));
+	}
+	
+	public void addWord(char[] buf, int off, int len) {
+		if (len > word.length) word = new char[Math.max(len, word.length * 2)];
+		
+		// normalize each letter, sending off whatever was kept whenever a letter splits the word
+		int kept = 0;
+		for (int i = off; i < off + len; ++i) {
+			char letter = buf[i];
+			if (foldCase) letter = LOWER[letter];
+			if (stripAccents && (letter = BASE[letter]) == DROPPED) continue;
+			if (keep != null && keep.indexOf(letter) < 0) {
+				if (kept > 0) sink.addWord(word, 0, kept);
+				kept = 0;
+			}
+			else word[kept++] = letter;
+		}
+		if (kept > 0) sink.addWord(word, 0, kept);
+	}
+	
+	/**
+	 * Builds the table of lower case letters
+	 * @return the lower case of every char
+	 */
+	private static char[] lowerTable() {
+		char[] table = new char[Alphabet.CHARS];
+		for (int c = 0; c < table.length; ++c) table[c] = Character.toLowerCase((char) c);
+		return table;
+	}
+	
+	/**
+	 * Builds the table of letters without accents
+	 * @return every char without its accent (or DROPPED, for accents on their own)
+	 */
+	private static char[] baseTable() {
+		char[] table = new char[Alphabet.CHARS];
+		for (int c = 0; c < table.length; ++c) {
+			table[c] = (char) c;
+			// accents on their own (as in already decomposed text) are dropped
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				table[c] = DROPPED;
+				continue;
+			}
+			// accented letters all lie between plain ASCII and the symbols starting at U+2000 (past
+			// there, decomposing only breaks up symbols and kana)
+			if (c < 0x80 || c >= 0x2000) continue;
+			
+			// a letter which decomposes into a base and accents is replaced by the base
+			String parts = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+			if (parts.length() < 2) continue;
+			boolean accents = true;
+			for (int i = 1; i < parts.length(); ++i)
+				accents &= Character.getType(parts.charAt(i)) == Character.NON_SPACING_MARK;
+			if (accents) table[c] = parts.charAt(0);
+		}
+		for (int i = 0; i < UNDECOMPOSED.length(); i += 2) table[UNDECOMPOSED.charAt(i)] = UNDECOMPOSED.charAt(i + 1);
+		table[DROPPED] = DROPPED;
+		return table;
+	}
+	
+	/**
+	 * Getter for this.sink
+	 * @return where normalized words go
+	 */
+	public S getSink() {return sink;}
+}
\ No newline at end of file
@@ -0,0 +1,242 @@
+package puzzleHelp;
+
+// for mapping files into memory
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// for reporting progress
+import java.util.function.LongConsumer;
+
+/**
+ * Splits UTF-8 bytes into whitespace-separated words and feeds them to a WordSink
+ * <br>
+ * Bytes are decoded straight into one reusable word buffer, so no Strings or arrays are made
+ * per word, and bytes may be fed in any number of pieces (even splitting a character)
+ * @author faith
+ */
+public class WordReader {
+	/**
+	 * where finished words go
+	 */
+	private final WordSink sink;
+	/**
+	 * the letters of the word currently being read
+	 */
+	private char[] word;
+	/**
+	 * the # of letters in the word currently being read
+	 */
+	private int len;
+	/**
+	 * the code point being decoded, if it has continuation bytes still to come
+	 */
+	private int point;
+	/**
+	 * the # of continuation bytes still needed to finish point
+	 */
+	private int need;
+	
+	/**
+	 * the most bytes of a file mapped at once
+	 */
+	public static final int CHUNK = 1 << 30;
+	/**
+	 * the # of bytes read from a stream at once
+	 */
+	public static final int BUFFER = 1 << 16;
+	/**
+	 * the code point used in place of malformed bytes
+	 */
+	public static final int REPLACEMENT = 0xFFFD;
+	
+	/**
+	 * Initializes a reader with no partial word
+	 * @param sink where to send words
+	 */
+	public WordReader(WordSink sink) {
+		this.sink = sink;
+		word = new char[64];
+		len = 0;
+		need = 0;
+	}
+	
+	/**
+	 * Reads every word of a file through a memory mapping
+	 * @param file the UTF-8 file to read
+	 * @param sink where to send words
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void read(Path file, WordSink sink) throws IOException {
+		read(file, sink, bytes -> {});
+	}
+	
+	/**
+	 * Reads every word of a file through a memory mapping, reporting bytes as they are read
+	 * @param file the UTF-8 file to read
+	 * @param sink where to send words
+	 * @param progress told the # of bytes read after every BUFFER bytes or so
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void read(Path file, WordSink sink, LongConsumer progress) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WordReader reader = new WordReader(sink);
+			// map the file a chunk at a time, and read each chunk a buffer at a time
+			long size = channel.size();
+			for (long pos = 0; pos < size; pos += CHUNK) {
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+						Math.min(CHUNK, size - pos));
+				for (int from = 0; from < buf.limit(); from += BUFFER) {
+					int to = Math.min(buf.limit(), from + BUFFER);
+					reader.feed(buf, from, to);
+					progress.accept(to - from);
+				}
+			}
+			// send off the last word
+			reader.finish();
+		}
+	}
+	
+	/**
+	 * Reads every word of a stream (which is left open), for input which cannot be mapped
+	 * @param in the UTF-8 stream to read
+	 * @param sink where to send words
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static void read(InputStream in, WordSink sink) throws IOException {
+		read(in, sink, bytes -> {});
+	}
+	
+	/**
+	 * Reads every word of a stream (which is left open), reporting bytes as they are read
+	 * @param in the UTF-8 stream to read
+	 * @param sink where to send words
+	 * @param progress told the # of bytes read after every read from the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static void read(InputStream in, WordSink sink, LongConsumer progress) throws IOException {
+		WordReader reader = new WordReader(sink);
+		// read into one array, wrapped once so it can be fed
+		byte[] bytes = new byte[BUFFER];
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		for (int n = in.read(bytes); n >= 0; n = in.read(bytes)) {
+			reader.feed(buf, 0, n);
+			progress.accept(n);
+		}
+		reader.finish();
+	}
+	
+	/**
+	 * Reads a range of bytes, sending off every word completed within it
+	 * @param buf the bytes to read (its position is not used or changed)
+	 * @param from the index of the first byte to read
+	 * @param to the index after the last byte to read
+	 */
+	public void feed(ByteBuffer buf, int from, int to) {
+		for (int i = from; i < to; ++i) {
+			byte b = buf.get(i);
+			// plain ASCII is by far the most common, so check it first
+			if (b >= 0 && need == 0) {
+				if (b <= ' ' && Character.isWhitespace(b)) endWord();
+				else append((char) b);
+			}
+			else decode(b);
+		}
+	}
+	
+	/**
+	 * Sends off any partly-read word, as the input has ended
+	 */
+	public void finish() {
+		// a character cut off by the end of input is malformed
+		if (need > 0) {
+			need = 0;
+			accept(REPLACEMENT);
+		}
+		endWord();
+	}
+	
+	/**
+	 * Handles a byte which is not plain ASCII, or which arrives in the middle of a character
+	 * @param b the byte to handle
+	 */
+	private void decode(byte b) {
+		// if this continues a character, add its bits
+		if ((b & 0xC0) == 0x80) {
+			// unless there was no character to continue
+			if (need == 0) {
+				accept(REPLACEMENT);
+				return;
+			}
+			point = (point << 6) | (b & 0x3F);
+			if (--need == 0) accept(point);
+			return;
+		}
+		
+		// any other byte cuts off a character in progress
+		if (need > 0) {
+			need = 0;
+			accept(REPLACEMENT);
+		}
+		
+		// start a new character based on its leading bits
+		if (b >= 0) accept(b);
+		else if ((b & 0xE0) == 0xC0) {
+			point = b & 0x1F;
+			need = 1;
+		}
+		else if ((b & 0xF0) == 0xE0) {
+			point = b & 0x0F;
+			need = 2;
+		}
+		else if ((b & 0xF8) == 0xF0) {
+			point = b & 0x07;
+			need = 3;
+		}
+		else accept(REPLACEMENT);
+	}
+	
+	/**
+	 * Handles a fully decoded code point
+	 * @param cp the code point to handle
+	 */
+	private void accept(int cp) {
+		// whitespace ends a word
+		if (Character.isWhitespace(cp)) endWord();
+		// anything else is part of the word, and may need two chars
+		else if (Character.isBmpCodePoint(cp)) append((char) cp);
+		else if (Character.isValidCodePoint(cp)) {
+			append(Character.highSurrogate(cp));
+			append(Character.lowSurrogate(cp));
+		}
+		else append((char) REPLACEMENT);
+	}
+	
+	/**
+	 * Adds a letter to the word being read
+	 * @param letter the letter to add
+	 */
+	private void append(char letter) {
+		// make room if this is the longest word yet
+		if (len == word.length) {
+			char[] bigger = new char[word.length * 2];
+			System.arraycopy(word, 0, bigger, 0, len);
+			word = bigger;
+		}
+		word[len++] = letter;
+	}
+	
+	/**
+	 * Sends off the word being read, if there is one
+	 */
+	private void endWord() {
+		if (len > 0) {
+			sink.addWord(word, 0, len);
+			len = 0;
+		}
+	}
+}
\ No newline at end of file
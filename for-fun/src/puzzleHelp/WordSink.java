@@ -0,0 +1,18 @@
+package puzzleHelp;
+
+/**
+ * Something that words can be fed into, one at a time
+ * <br>
+ * Words are passed as slices of a buffer which the caller may reuse as soon as the call returns,
+ * so a WordSink must copy anything it wants to keep
+ * @author faith
+ */
+public interface WordSink {
+	/**
+	 * Takes in a single word
+	 * @param buf the array containing the word
+	 * @param off the index of the first letter of the word
+	 * @param len the # of letters in the word
+	 */
+	void addWord(char[] buf, int off, int len);
+}
\ No newline at end of file
@@ -1,11 +1,13 @@
 package sudoku;
 
 // for drawing
+import java.awt.Font;
 import java.awt.Graphics;
 
 // for arrays that can change size
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 
 // for dealing with files
 import java.io.File;
@@ -26,7 +28,7 @@ import java.util.Scanner;
  * 	<li>can save itself</li>
  * 	<li>can load a state from a file</li>
  * 	<li>can set specific Tiles to numbers,</li>
- * 	<li>and dynamically calculate possibilities for all other Tiles</li>
+ * 	<li>and dynamically calculate possibilities for all other Tiles (with a list of Deductions)</li>
  * 	<li>can undo back to start</li>
  * 	<li>and can draw itself</li>
  * </ul>
@@ -37,10 +39,39 @@ public class Board {
 	 * all Tiles, organized by row
 	 */
 	private Tile[][] rows;
+	/**
+	 * all Tiles, organized by column
+	 */
+	private Tile[][] cols;
 	/**
 	 * all Tiles, organized by group
 	 */
 	private Tile[][] groups;
+	/**
+	 * every row, then every column, then every group
+	 */
+	private Tile[][] units;
+	/**
+	 * the units (bit i for units[i]) with Tiles whose possibilities changed since the unit was last checked
+	 */
+	private int dirty;
+	/**
+	 * the rules used to remove possibilities, cheapest first
+	 */
+	private List<Deduction> deductions;
+	
+	/**
+	 * the numbers placed in each row, as candidate bits (see Tile.bit)
+	 */
+	private int[] rowUsed;
+	/**
+	 * the numbers placed in each column, as candidate bits
+	 */
+	private int[] colUsed;
+	/**
+	 * the numbers placed in each group, as candidate bits
+	 */
+	private int[] groupUsed;
 	
 	/**
 	 * a currently-active Tile
@@ -68,6 +99,10 @@ public class Board {
 	 * the side length of the overall grid
 	 */
 	public static final int SIZE = ROWS * COLS;
+	/**
+	 * the # of units (rows, then columns, then groups)
+	 */
+	public static final int UNITS = 3 * SIZE;
 	
 	/**
 	 * the File with save data
@@ -84,16 +119,30 @@ public class Board {
 	public Board() {
 		// set up the matrices of Tiles
 		rows = new Tile[SIZE][SIZE];
+		cols = new Tile[SIZE][SIZE];
 		groups = new Tile[SIZE][SIZE];
+		// nothing is placed yet
+		rowUsed = new int[SIZE];
+		colUsed = new int[SIZE];
+		groupUsed = new int[SIZE];
 		
 		// loop over all cells of the matrix that need Tiles
 		for (int row = 0; row < SIZE; ++row) for (int col = 0; col < SIZE; ++col) {
 			// stick at Tile into rows
 			rows[row][col] = new Tile(row, col);
+			// copy the Tile into cols
+			cols[col][row] = rows[row][col];
 			// copy the Tile into groups
 			groups[getGroup(row, col)]
 					[(row % ROWS) * COLS + col % COLS] = rows[row][col];
 		}
+		// line up every unit, so that each has a bit in dirty
+		units = new Tile[UNITS][];
+		System.arraycopy(rows, 0, units, 0, SIZE);
+		System.arraycopy(cols, 0, units, SIZE, SIZE);
+		System.arraycopy(groups, 0, units, 2 * SIZE, SIZE);
+		deductions = defaultDeductions();
+		dirty = 0;
 		
 		// initialize the list of changed
 		changed = new ArrayList<Tile>();
@@ -110,18 +159,58 @@ public class Board {
 	 * @param col the column of the Tile
 	 * @return the group # of this Tile
 	 */
-	private int getGroup(int row, int col) {
+	private static int getGroup(int row, int col) {
 		return (row / COLS) * ROWS + col / COLS;
 	}
 	
+	/**
+	 * @param row a row of the Board
+	 * @return the unit # of the row
+	 */
+	static int getRowUnit(int row) {return row;}
+	
+	/**
+	 * @param col a column of the Board
+	 * @return the unit # of the column
+	 */
+	static int getColUnit(int col) {return SIZE + col;}
+	
+	/**
+	 * @param row the row of a Tile
+	 * @param col the column of the Tile
+	 * @return the unit # of the Tile's group
+	 */
+	static int getGroupUnit(int row, int col) {return 2 * SIZE + getGroup(row, col);}
+	
+	/**
+	 * @param unit a unit #
+	 * @return whether the unit is a row
+	 */
+	static boolean isRow(int unit) {return unit < SIZE;}
+	
+	/**
+	 * @param unit a unit #
+	 * @return whether the unit is a group
+	 */
+	static boolean isGroup(int unit) {return unit >= 2 * SIZE;}
+	
+	/**
+	 * @param unit a unit # (rows, then columns, then groups)
+	 * @return the Tiles of the unit (not to be changed), groups in reading order
+	 */
+	Tile[] getUnit(int unit) {return units[unit];}
+	
 	/**
 	 * Draws the board
 	 * @param window the window to draw on
 	 */
 	public void draw(Graphics window) {
+		// make the fonts once, instead of once for every Tile
+		Font big = window.getFont().deriveFont(60.0f);
+		Font small = window.getFont().deriveFont(15.0f);
 		// draw each Tile
 		for (Tile[] row : rows) for (Tile tile : row)
-			tile.draw(window);
+			tile.draw(window, big, small);
 	}
 	
 	/**
@@ -138,27 +227,12 @@ public class Board {
 
 	/**
 	 * @param tile the Tile to check
-	 * @param num the number to check for
-	 * @return whether this Tile can "see" - i.e. is affected by - this number
+	 * @return every number placed in this Tile's row, column or group, as candidate bits
 	 */
-	private boolean canSee(Tile tile, int num) {
-		// save row and column
+	private int getSeen(Tile tile) {
 		int row = tile.getRow();
 		int col = tile.getCol();
-		
-		// check in this column
-		for (int ro = 0; ro < SIZE; ++ro)
-			// if this number is here, can see
-			if (rows[ro][col].getNum() == num) return true;
-		// similar loop for row
-		for (Tile other : rows[row])
-			if (other.getNum() == num) return true;
-		// similar loop for group
-		for (Tile other : groups[getGroup(row, col)])
-			if (other.getNum() == num) return true;
-		
-		// or if not seen anywhere, cannot see
-		return false;
+		return rowUsed[row] | colUsed[col] | groupUsed[getGroup(row, col)];
 	}
 	
 	/**
@@ -168,10 +242,11 @@ public class Board {
 	 */
 	private boolean setNum(Tile tile, int num) {
 		// unsuccessful if tile is null or cannot be set
-		if (tile == null || !tile.couldBe(num) || num <= 0 || num > SIZE) return false;
+		if (tile == null || num <= 0 || num > SIZE || !tile.couldBe(num)) return false;
 		
-		// set the number, and record the move
+		// set the number (marking it as used everywhere the tile is), and record the move
 		tile.setNum(num);
+		setUsed(tile, num, true);
 		writeMove("R" + (tile.getRow() + 1) + "C" + (tile.getCol() + 1) + ":" + num);
 		// update the list of moves
 		changed.add(active);
@@ -190,47 +265,18 @@ public class Board {
 		int col = center.getCol();
 		
 		// loop though column
-		for (int ro = 0; ro < SIZE; ++ro)
-			// remove possibility
-			rows[ro][col].removePos(pos);
+		for (Tile other : cols[col])
+			// remove possibility, noting the change
+			if (other.removePos(pos)) touch(other);
 		// similar loop for row
 		for (Tile other : rows[row])
-			other.removePos(pos);
+			if (other.removePos(pos)) touch(other);
 		// similar loop for group
 		for (Tile other : groups[getGroup(row, col)])
-			other.removePos(pos);
-		// add center back
+			if (other.removePos(pos)) touch(other);
+		// add center back (whose possibilities changed when it was set)
 		center.addPos(pos);
-	}
-	
-	/**
-	 * @param center the tile to add possibilities from outwards
-	 * @param pos the possible number to remove, if applicable
-	 */
-	private void addPos(Tile center, int pos) {
-		// save row and column
-		int row = center.getRow();
-		int col = center.getCol();
-		
-		// loop through column
-		for (int ro = 0; ro < SIZE; ++ro)
-			// if this Tile has no single number and can't see pos any other way
-			if (!rows[ro][col].hasNum() && !canSee(rows[ro][col], pos))
-				// remove the possibility
-				rows[ro][col].addPos(pos);
-		
-		// similar loop for row
-		for (Tile other : rows[row])
-			if (!other.hasNum() && !canSee(other, pos))
-				other.addPos(pos);
-		
-		// similar loop for group
-		for (Tile other : groups[getGroup(row, col)])
-			if (!other.hasNum() && !canSee(other, pos))
-				other.addPos(pos);
-		
-		// deal with inivisibles
-		removeInvisible();
+		touch(center);
 	}
 	
 	/**
@@ -244,18 +290,103 @@ public class Board {
 			// grab its number
 			int old = last.getNum();
 			
-			// reset last Tile
+			// reset last Tile, and free up its number
 			last.reset();
-			// add in possibilities from removing this number
-			addPos(last, old);
-			// calculate possibilities for this Tile
-			for (int i = 1; i <= SIZE; ++i)
-				if (canSee(last, i)) last.removePos(i);
+			setUsed(last, old, false);
+			// recalculate every open Tile from scratch, as anything deduced since may have relied on this number
+			recalculate();
+			// deal with inivisibles
+			removeInvisible();
 			// record the undo
 			writeMove("undo");
 		}
 	}
 	
+	/**
+	 * Marks a number as placed (or not) in the row, column and group of a Tile
+	 * @param tile the Tile the number is placed in
+	 * @param num the number
+	 * @param used whether the number is now placed there
+	 */
+	private void setUsed(Tile tile, int num, boolean used) {
+		int row = tile.getRow();
+		int col = tile.getCol();
+		int group = getGroup(row, col);
+		if (used) {
+			rowUsed[row] |= Tile.bit(num);
+			colUsed[col] |= Tile.bit(num);
+			groupUsed[group] |= Tile.bit(num);
+		}
+		else {
+			rowUsed[row] &= ~Tile.bit(num);
+			colUsed[col] &= ~Tile.bit(num);
+			groupUsed[group] &= ~Tile.bit(num);
+		}
+	}
+	
+	/**
+	 * Resets every Tile, leaving nothing placed
+	 */
+	private void clear() {
+		for (Tile[] row : rows) for (Tile tile : row)
+			tile.reset();
+		for (int i = 0; i < SIZE; ++i) rowUsed[i] = colUsed[i] = groupUsed[i] = 0;
+		// every unit needs checking again
+		dirty = (1 << UNITS) - 1;
+	}
+	
+	/**
+	 * Resets the possibilities of every Tile without a number to those its row, column and group allow
+	 * (one mask for each), leaving every unit to be checked again
+	 */
+	private void recalculate() {
+		for (Tile[] row : rows) for (Tile tile : row) if (!tile.hasNum()) {
+			tile.reset();
+			tile.removeAll(getSeen(tile));
+		}
+		dirty = (1 << UNITS) - 1;
+	}
+	
+	/**
+	 * Notes that a Tile's possibilities changed, so its row, column and group need checking again
+	 * @param tile the Tile which changed
+	 */
+	private void touch(Tile tile) {
+		int row = tile.getRow();
+		int col = tile.getCol();
+		dirty |= 1 << getRowUnit(row) | 1 << getColUnit(col) | 1 << getGroupUnit(row, col);
+	}
+	
+	/**
+	 * Removes possibilities from a Tile on behalf of a Deduction, noting the change
+	 * @param tile the Tile to remove from (left alone if it has a number)
+	 * @param mask the numbers to remove, as candidate bits
+	 * @return whether any of them were possible before
+	 */
+	boolean eliminate(Tile tile, int mask) {
+		if (tile.hasNum() || !tile.removeAll(mask)) return false;
+		touch(tile);
+		return true;
+	}
+	
+	/**
+	 * Finds where each number could go in a unit
+	 * @param unit the Tiles of a group, row or column
+	 * @param where filled with the places (bit i for unit[i]) each number n could go in, at n - 1
+	 * @return the numbers already placed in the unit, as candidate bits
+	 */
+	static int findPlaces(Tile[] unit, int[] where) {
+		Arrays.fill(where, 0, SIZE, 0);
+		int placed = 0;
+		for (int i = 0; i < unit.length; ++i) {
+			Tile tile = unit[i];
+			if (tile.hasNum()) placed |= Tile.bit(tile.getNum());
+			else for (int left = tile.getCandidates(); left != 0; left &= left - 1)
+				where[Integer.numberOfTrailingZeros(left)] |= 1 << i;
+		}
+		return placed;
+	}
+	
 	/**
 	 * Write a move to the moves file
 	 * @param str the move to write
@@ -273,6 +404,16 @@ public class Board {
 		}
 	}
 	
+	/**
+	 * @return the number of every Tile (or Tile.NO_NUM), in reading order
+	 */
+	public int[] getNums() {
+		int[] nums = new int[SIZE * SIZE];
+		for (int row = 0; row < SIZE; ++row) for (int col = 0; col < SIZE; ++col)
+			nums[row * SIZE + col] = rows[row][col].getNum();
+		return nums;
+	}
+	
 	/**
 	 * Sets a Tile as the active Tile
 	 * @param row the row of the Tile to set
@@ -298,84 +439,51 @@ public class Board {
 	/**
 	 * Remove "invisible" impossibilities
 	 * <br>
-	 * If any group (row, column, box) has n cells which share the same exact n possibilities,
-	 * then no other cells in that group can have any of those n possibilities EVEN THOUGH
-	 * it is not known which of the n cells has each possibility
+	 * Each Deduction (naked and hidden singles, pointing pairs, naked subsets, ...) finds possibilities
+	 * which cannot be right, by looking at one group, row or column at a time
+	 * <br>
+	 * Only units with changed Tiles are checked, and any Tile changed by a check puts its own units
+	 * back on the list, until nothing is left to check. Each unit is checked with the cheapest rule
+	 * first, and goes back to the cheapest rule as soon as any rule removes something, so that costly
+	 * rules only run once the cheap ones are stuck
 	 */
 	private void removeInvisible() {
-		// map possibilities to Tiles
-		HashMap<HashableArray, ArrayList<Tile>> pos = new HashMap<HashableArray, ArrayList<Tile>>();
-		// no Tiles have been removed yet
-		boolean removed = false;
-		
-		// check each group individually
-		for (Tile[] group : groups) {
-			// for each Tile which has possibilities (plural)
-			for (Tile tile : group) if (!tile.hasNum()) {
-				// wrap possibilities
-				HashableArray curPos = new HashableArray(tile.getAllPos());
-				// save in map
-				pos.putIfAbsent(curPos, new ArrayList<Tile>());
-				pos.get(curPos).add(tile);
-			}
-			
-			// for each group of possibilities
-			for (HashableArray posse : pos.keySet()) {
-				// if there are n Tiles sharing n possibilities
-				if (posse.length() == pos.get(posse).size()) 
-					// remove all n possibilities from all other Tiles in group
-					for (Tile tile : group) if (!pos.get(posse).contains(tile)) 
-						for (int p : posse.getArr()) if (tile.removePos(p))
-							// note if a removal occurred ^^^
-							removed = true;
-			}
-			// clean up
-			pos.clear();
-		}
-		
-		// same for rows
-		for (Tile[] row : rows) {
-			for (Tile tile : row) if (!tile.hasNum()) {
-				HashableArray curPos = new HashableArray(tile.getAllPos());
-				pos.putIfAbsent(curPos, new ArrayList<Tile>());
-				pos.get(curPos).add(tile);
+		// take the dirty units one at a time, lowest first
+		while (dirty != 0) {
+			int unit = Integer.numberOfTrailingZeros(dirty);
+			dirty &= dirty - 1;
+			for (Deduction deduction : deductions) if (deduction.apply(this, unit)) {
+				// the unit may have more to give, so start it over with the cheapest rule
+				dirty |= 1 << unit;
+				break;
 			}
-			
-			for (HashableArray posse : pos.keySet())
-				if (posse.length() == pos.get(posse).size()) 
-					for (Tile tile : row) if (!pos.get(posse).contains(tile)) 
-						for (int p : posse.getArr()) if (tile.removePos(p))
-							removed = true;
-			
-			pos.clear();
 		}
-		
-		// same for columns
-		for (int col = 0; col < SIZE; ++col) {
-			for (int row = 0; row < SIZE; ++row) {
-				Tile tile = rows[row][col];
-				if (!tile.hasNum()) {
-					HashableArray curPos = new HashableArray(tile.getAllPos());
-					pos.putIfAbsent(curPos, new ArrayList<Tile>());
-					pos.get(curPos).add(tile);
-				}
-			}
-			for (HashableArray posse : pos.keySet())
-				if (posse.length() == pos.get(posse).size()) 
-					for (int row = 0; row < SIZE; ++row) {
-						Tile tile = rows[row][col];
-						if (!pos.get(posse).contains(tile)) 
-						for (int p : posse.getArr()) if (tile.removePos(p))
-							removed = true;
-					}
-			
-			pos.clear();
-		}
-		
-		// if any possibilities were removed, recalculate
-		if (removed) removeInvisible();
 	}
 	
+	/**
+	 * Makes the standard rules, cheapest first
+	 * @return naked and hidden singles, pointing pairs, box-line reduction, hidden pairs and triples,
+	 * then naked subsets
+	 */
+	public static List<Deduction> defaultDeductions() {
+		return new ArrayList<Deduction>(Arrays.asList(new NakedSingles(), new HiddenSubsets(1), new PointingPairs(),
+				new BoxLineReduction(), new HiddenSubsets(2), new HiddenSubsets(3), new NakedSubsets()));
+	}
+	
+	/**
+	 * Sets the rules used to remove possibilities, and applies them to every unit
+	 * @param deductions the rules, in the order to try them (cheapest first)
+	 */
+	public void setDeductions(List<Deduction> deductions) {
+		this.deductions = new ArrayList<Deduction>(deductions);
+		dirty = (1 << UNITS) - 1;
+		removeInvisible();
+	}
+	
+	/**
+	 * @return the rules used to remove possibilities, cheapest first
+	 */
+	public List<Deduction> getDeductions() {return deductions;}
 	
 	/**
 	 * Saves the current state to a file
@@ -408,6 +516,8 @@ public class Board {
 	 * Loads a state from the save-file
 	 */
 	public void load() {
+		// start from an empty Board, so nothing already placed gets in the way
+		clear();
 		// point a Scanner at the save-file
 		try(Scanner reader = new Scanner(saveFile)) {
 			// loop over all numbers to read
@@ -422,16 +532,14 @@ public class Board {
 		catch (NoSuchElementException e) {
 			// note and reset Board
 			System.out.println("Saved level has lost data; reverting back to default");
-			for (Tile[] row : rows) for (Tile tile : row)
-				tile.reset();
+			clear();
 		}
 		// if something else went wrong
 		catch (Exception e) {
 			// not and reset Board
 			System.out.println("Could not load the saved level; reverting back to default");
 			e.printStackTrace();
-			for (Tile[] row : rows) for (Tile tile : row)
-				tile.reset();
+			clear();
 		}
 		finally {
 			// clear all "moves"
@@ -443,59 +551,4 @@ public class Board {
 			catch (IOException e) {}
 		}
 	}
-	
-	/**
-	 * An array which is actually hashable - [3] == [3], even if different instances
-	 * @author faith
-	 */
-	private class HashableArray {
-		/**
-		 * the wrapped array
-		 */
-		private int[] arr;
-		/**
-		 * the array represented as a String
-		 */
-		private String arrString;
-		
-		/**
-		 * Wraps an array and calculates its String
-		 * @param arr the array to wrap
-		 */
-		public HashableArray(int[] arr) {
-			// clone array so that outside changes will not affect inside
-			this.arr = arr.clone();
-			if (arr.length == 0) arrString = "[]";
-			else {
-				// builds up, essentially, Arrays.toString()
-				arrString = "[";
-				for (int num : arr)
-					arrString += num + ", ";
-				
-				arrString =  arrString.substring(0, arrString.length() - 2) + "]";
-			}
-		}
-		
-		/**
-		 * @return a clone of wrapped array
-		 */
-		public int[] getArr() {return arr.clone();}
-		
-		public int length() {return arr.length;}
-		
-		public boolean equals(Object obj) {
-			if (obj instanceof HashableArray)
-				// inner-array strings are easier to check than arrays
-				return toString().equals(((HashableArray) obj).toString());
-			
-			return false;
-		}
-		
-		public String toString() {return arrString;}
-		
-		/**
-		 * Uses the array-string's hashcode
-		 */
-		public int hashCode() {return arrString.hashCode();}
-	}
 }
\ No newline at end of file
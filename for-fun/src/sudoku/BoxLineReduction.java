@@ -0,0 +1,47 @@
+package sudoku;
+
+/**
+ * Finds box-line reductions: a number whose places in a row or column all lie in one group, so it
+ * must be in that row or column within the group, and nowhere else in the group
+ * @author faith
+ */
+public class BoxLineReduction implements Deduction {
+	/**
+	 * where each number could go in the row or column being checked (reused for every unit)
+	 */
+	private final int[] where;
+	
+	/**
+	 * Initializes the rule
+	 */
+	public BoxLineReduction() {
+		where = new int[Board.SIZE];
+	}
+	
+	public boolean apply(Board board, int unit) {
+		// only rows and columns are lines
+		if (Board.isGroup(unit)) return false;
+		Tile[] tiles = board.getUnit(unit);
+		int free = Tile.ALL & ~Board.findPlaces(tiles, where);
+		// a row crosses a group every COLS Tiles, and a column every ROWS Tiles
+		int width = Board.isRow(unit) ? Board.COLS : Board.ROWS;
+		int segment = (1 << width) - 1;
+		boolean removed = false;
+		
+		// for each number not yet placed, check if its places are all in one group
+		for (int left = free; left != 0; left &= left - 1) {
+			int num = Tile.lowest(left);
+			int places = where[num - 1];
+			if (places == 0) continue;
+			int start = Integer.numberOfTrailingZeros(places) / width * width;
+			if ((places & ~(segment << start)) != 0) continue;
+			
+			// if so, remove it from the rest of that group
+			Tile first = tiles[start];
+			for (Tile tile : board.getUnit(Board.getGroupUnit(first.getRow(), first.getCol())))
+				if (!(Board.isRow(unit) ? tile.getRow() == first.getRow() : tile.getCol() == first.getCol()))
+					removed |= board.eliminate(tile, Tile.bit(num));
+		}
+		return removed;
+	}
+}
\ No newline at end of file
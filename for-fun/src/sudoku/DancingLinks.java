@@ -0,0 +1,334 @@
+package sudoku;
+
+// for reading puzzles in bulk
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Solves Sudokus headlessly with Knuth's Algorithm X over a Dancing Links matrix
+ * <br>
+ * A Sudoku is an exact cover problem: each choice (a number in a Tile) covers four constraints (the
+ * Tile has a number, and the number is in its row, its column and its group), and a solution picks
+ * choices covering every constraint exactly once
+ * <br>
+ * The matrix is built once, as parallel int arrays of links (node 0 is the root, then one header per
+ * constraint, then four nodes per choice), and every solve covers and uncovers columns in place,
+ * leaving it exactly as it was, so one solver can solve any number of puzzles without allocating
+ * @author faith
+ */
+public class DancingLinks {
+	/**
+	 * the link to the node to the left of each node
+	 */
+	private final int[] left;
+	/**
+	 * the link to the node to the right of each node
+	 */
+	private final int[] right;
+	/**
+	 * the link to the node above each node
+	 */
+	private final int[] up;
+	/**
+	 * the link to the node below each node
+	 */
+	private final int[] down;
+	/**
+	 * the header of the column of each node
+	 */
+	private final int[] column;
+	/**
+	 * the choice (SIZE * Tile index + number - 1) each node belongs to
+	 */
+	private final int[] choice;
+	/**
+	 * the # of nodes left in each column, by header
+	 */
+	private final int[] size;
+	/**
+	 * the first node of each choice picked so far (givens first)
+	 */
+	private final int[] picked;
+	/**
+	 * the # of choices picked so far
+	 */
+	private int depth;
+	/**
+	 * the # of times search was entered by the last solve
+	 */
+	private long nodes;
+	/**
+	 * the numbers of the last solution found, or null if there was none
+	 */
+	private int[] solution;
+	
+	/**
+	 * the # of Tiles in a Board
+	 */
+	public static final int TILES = Board.SIZE * Board.SIZE;
+	/**
+	 * the # of constraints (columns of the matrix)
+	 */
+	private static final int CONSTRAINTS = 4 * TILES;
+	/**
+	 * the # of choices (rows of the matrix)
+	 */
+	private static final int CHOICES = TILES * Board.SIZE;
+	/**
+	 * the root, whose row links every column header not yet covered
+	 */
+	private static final int ROOT = 0;
+	
+	/**
+	 * Builds the matrix
+	 */
+	public DancingLinks() {
+		int count = 1 + CONSTRAINTS + 4 * CHOICES;
+		left = new int[count];
+		right = new int[count];
+		up = new int[count];
+		down = new int[count];
+		column = new int[count];
+		choice = new int[count];
+		size = new int[1 + CONSTRAINTS];
+		picked = new int[TILES];
+		
+		// the root and headers in one ring, each header starting as an empty column
+		for (int header = ROOT; header <= CONSTRAINTS; ++header) {
+			left[header] = header == ROOT ? CONSTRAINTS : header - 1;
+			right[header] = header == CONSTRAINTS ? ROOT : header + 1;
+			up[header] = down[header] = column[header] = header;
+		}
+		
+		// each choice is a ring of four nodes, one at the bottom of each constraint's column
+		for (int pick = 0; pick < CHOICES; ++pick) {
+			int tile = pick / Board.SIZE;
+			int num = pick % Board.SIZE;
+			int row = tile / Board.SIZE;
+			int col = tile % Board.SIZE;
+			int group = Board.getGroupUnit(row, col) - Board.getGroupUnit(0, 0);
+			int[] headers = {1 + tile, 1 + TILES + row * Board.SIZE + num, 1 + 2 * TILES + col * Board.SIZE + num,
+					1 + 3 * TILES + group * Board.SIZE + num};
+			
+			int first = firstNode(pick);
+			for (int i = 0; i < 4; ++i) {
+				int node = first + i;
+				int header = headers[i];
+				column[node] = header;
+				choice[node] = pick;
+				left[node] = first + (i + 3) % 4;
+				right[node] = first + (i + 1) % 4;
+				up[node] = up[header];
+				down[node] = header;
+				down[up[header]] = node;
+				up[header] = node;
+				++size[header];
+			}
+		}
+	}
+	
+	/**
+	 * Solves the numbers placed on a Board
+	 * @param board the Board to solve (not changed)
+	 * @return the number of every Tile in reading order, or null if there is no solution
+	 */
+	public int[] solve(Board board) {
+		return solve(board.getNums());
+	}
+	
+	/**
+	 * Solves a puzzle
+	 * @param givens the number of every Tile in reading order (0 or Tile.NO_NUM where there is none)
+	 * @return the number of every Tile in reading order, or null if there is no solution
+	 */
+	public int[] solve(int[] givens) {
+		if (givens.length != TILES) throw new IllegalArgumentException("Expected " + TILES + " Tiles, not " + givens.length);
+		nodes = 0;
+		solution = null;
+		
+		// givens which clash have no solution, and would break the matrix if picked
+		int[] used = new int[3 * Board.SIZE];
+		for (int tile = 0; tile < TILES; ++tile) {
+			int num = givens[tile];
+			if (num == 0 || num == Tile.NO_NUM) continue;
+			if (num < 0 || num > Board.SIZE) throw new IllegalArgumentException("Invalid number: " + num);
+			int row = tile / Board.SIZE;
+			int col = tile % Board.SIZE;
+			int[] units = {Board.getRowUnit(row), Board.getColUnit(col), Board.getGroupUnit(row, col)};
+			for (int unit : units) {
+				if ((used[unit] & Tile.bit(num)) != 0) return null;
+				used[unit] |= Tile.bit(num);
+			}
+		}
+		
+		// pick every given, then search for the rest
+		depth = 0;
+		for (int tile = 0; tile < TILES; ++tile) {
+			int num = givens[tile];
+			if (num != 0 && num != Tile.NO_NUM) pick(firstNode(tile * Board.SIZE + num - 1));
+		}
+		search();
+		// put the matrix back as it was, for the next puzzle
+		while (depth > 0) unpick(picked[depth - 1]);
+		return solution;
+	}
+	
+	/**
+	 * Searches for a cover of every column left, recording the first found in solution
+	 * @return whether a solution was found
+	 */
+	private boolean search() {
+		++nodes;
+		// every constraint is covered, so the picks are a solution
+		if (right[ROOT] == ROOT) {
+			solution = new int[TILES];
+			for (int i = 0; i < depth; ++i) {
+				int pick = choice[picked[i]];
+				solution[pick / Board.SIZE] = pick % Board.SIZE + 1;
+			}
+			return true;
+		}
+		
+		// branch on the column with the fewest choices left (stopping early at 0 or 1)
+		int best = right[ROOT];
+		for (int header = right[best]; header != ROOT && size[best] > 1; header = right[header])
+			if (size[header] < size[best]) best = header;
+		if (size[best] == 0) return false;
+		
+		// try each choice in the column, stopping at the first solution
+		boolean found = false;
+		cover(best);
+		for (int node = down[best]; node != best && !found; node = down[node]) {
+			picked[depth++] = node;
+			for (int other = right[node]; other != node; other = right[other]) cover(column[other]);
+			found = search();
+			for (int other = left[node]; other != node; other = left[other]) uncover(column[other]);
+			--depth;
+		}
+		uncover(best);
+		return found;
+	}
+	
+	/**
+	 * Picks a choice outright, covering all its columns
+	 * @param first the first node of the choice
+	 */
+	private void pick(int first) {
+		picked[depth++] = first;
+		cover(column[first]);
+		for (int other = right[first]; other != first; other = right[other]) cover(column[other]);
+	}
+	
+	/**
+	 * Undoes pick (the last picked choice first)
+	 * @param first the first node of the choice
+	 */
+	private void unpick(int first) {
+		for (int other = left[first]; other != first; other = left[other]) uncover(column[other]);
+		uncover(column[first]);
+		--depth;
+	}
+	
+	/**
+	 * Removes a column from the header ring, and every choice in it from the other columns
+	 * @param header the header of the column
+	 */
+	private void cover(int header) {
+		right[left[header]] = right[header];
+		left[right[header]] = left[header];
+		for (int row = down[header]; row != header; row = down[row])
+			for (int node = right[row]; node != row; node = right[node]) {
+				down[up[node]] = down[node];
+				up[down[node]] = up[node];
+				--size[column[node]];
+			}
+	}
+	
+	/**
+	 * Undoes cover (in exactly the reverse order)
+	 * @param header the header of the column
+	 */
+	private void uncover(int header) {
+		for (int row = up[header]; row != header; row = up[row])
+			for (int node = left[row]; node != row; node = left[node]) {
+				++size[column[node]];
+				down[up[node]] = node;
+				up[down[node]] = node;
+			}
+		right[left[header]] = header;
+		left[right[header]] = header;
+	}
+	
+	/**
+	 * @param pick a choice (SIZE * Tile index + number - 1)
+	 * @return the first of the choice's four nodes
+	 */
+	private static int firstNode(int pick) {return 1 + CONSTRAINTS + 4 * pick;}
+	
+	/**
+	 * @return the # of times search was entered by the last solve (0 if the givens clashed)
+	 */
+	public long getNodes() {return nodes;}
+	
+	/**
+	 * Reads a puzzle written on one line, in reading order
+	 * @param line a digit for each Tile, with 0 or . for Tiles with no number
+	 * @return the number of every Tile (0 where there is none)
+	 */
+	public static int[] parse(CharSequence line) {
+		if (line.length() != TILES) throw new IllegalArgumentException("Expected " + TILES + " Tiles: " + line);
+		int[] givens = new int[TILES];
+		for (int i = 0; i < TILES; ++i) {
+			char c = line.charAt(i);
+			if (c != '.') givens[i] = Character.digit(c, Board.SIZE + 1);
+			if (givens[i] < 0) throw new IllegalArgumentException("Invalid number '" + c + "' in " + line);
+		}
+		return givens;
+	}
+	
+	/**
+	 * Solves puzzles in bulk and prints how long they took
+	 * @param args optionally, a file with one puzzle per line (see parse), otherwise the saved Board is
+	 * solved
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		DancingLinks solver = new DancingLinks();
+		
+		// with no file, solve the saved Board and show the solution
+		if (args.length == 0) {
+			int[] givens = new int[TILES];
+			try (Scanner reader = new Scanner(Board.saveFile)) {
+				for (int i = 0; i < TILES; ++i) givens[i] = reader.nextInt();
+			}
+			int[] solved = solver.solve(givens);
+			if (solved == null) System.out.println("No solution");
+			else for (int row = 0; row < Board.SIZE; ++row) {
+				StringBuilder line = new StringBuilder();
+				for (int col = 0; col < Board.SIZE; ++col) line.append(solved[row * Board.SIZE + col]).append(' ');
+				System.out.println(line.toString().trim());
+			}
+			System.out.println(solver.getNodes() + " search nodes");
+			return;
+		}
+		
+		// otherwise solve every puzzle in the file, timing the lot
+		List<String> lines = Files.readAllLines(Paths.get(args[0]));
+		int puzzles = 0;
+		int solvedCount = 0;
+		long totalNodes = 0;
+		long start = System.nanoTime();
+		for (String line : lines) {
+			if (line.trim().isEmpty()) continue;
+			++puzzles;
+			if (solver.solve(parse(line.trim())) != null) ++solvedCount;
+			totalNodes += solver.getNodes();
+		}
+		double micros = (System.nanoTime() - start) / 1e3;
+		System.out.printf("%,d puzzles, %,d solved, %,d search nodes, %.1f us/puzzle%n", puzzles, solvedCount, totalNodes,
+				micros / Math.max(1, puzzles));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package sudoku;
+
+/**
+ * A rule which removes possibilities from the Tiles of a Board, looking at one unit (row, column
+ * or group) at a time
+ * <br>
+ * A Board runs its Deductions over every unit with changed Tiles, cheapest first, going back to
+ * the cheapest as soon as one removes anything
+ * @author faith
+ */
+public interface Deduction {
+	/**
+	 * Applies this rule to one unit, removing possibilities through Board.eliminate
+	 * @param board the Board to apply this rule to
+	 * @param unit the index of the unit (see Board.getUnit)
+	 * @return whether any possibilities were removed
+	 */
+	boolean apply(Board board, int unit);
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package sudoku;
+
+/**
+ * Finds hidden subsets: n numbers which, within a unit, can only go in the same n Tiles, so
+ * those Tiles can be nothing else
+ * <br>
+ * With n = 1 this is a hidden single, a number with only one place left in a unit
+ * <br>
+ * Only sets of exactly n numbers are tried (as combinations of the numbers not yet placed), so the
+ * rule costs as much as its size calls for, from about SIZE checks for singles upwards
+ * @author faith
+ */
+public class HiddenSubsets implements Deduction {
+	/**
+	 * the # of numbers (and Tiles) in each subset
+	 */
+	private final int size;
+	/**
+	 * where each number could go in the unit being checked (reused for every unit)
+	 */
+	private final int[] where;
+	/**
+	 * the candidate bit of each number not yet placed in the unit being checked
+	 */
+	private final int[] free;
+	
+	/**
+	 * Initializes a rule for subsets of one size
+	 * @param size the # of numbers (and Tiles) in each subset (1 for hidden singles)
+	 */
+	public HiddenSubsets(int size) {
+		if (size <= 0 || size >= Board.SIZE) throw new IllegalArgumentException("Invalid subset size: " + size);
+		this.size = size;
+		where = new int[Board.SIZE];
+		free = new int[Board.SIZE];
+	}
+	
+	public boolean apply(Board board, int unit) {
+		Tile[] tiles = board.getUnit(unit);
+		int open = Tile.ALL & ~Board.findPlaces(tiles, where);
+		boolean removed = false;
+		
+		// a single only needs each number's own places
+		if (size == 1) {
+			for (int left = open; left != 0; left &= left - 1) {
+				int places = where[Tile.lowest(left) - 1];
+				if (Integer.bitCount(places) == 1)
+					removed |= board.eliminate(tiles[Integer.numberOfTrailingZeros(places)], ~(left & -left) & Tile.ALL);
+			}
+			return removed;
+		}
+		
+		// list the numbers not yet placed, to pick combinations of them by index
+		int count = 0;
+		for (int left = open; left != 0; left &= left - 1) free[count++] = left & -left;
+		if (count <= size) return false;
+		
+		// for each combination of size numbers (the next bigger int with as many bits, each time)
+		for (int combo = (1 << size) - 1; combo < 1 << count; combo = nextCombination(combo)) {
+			// find the numbers, and every Tile any of them could go in (a number with nowhere to go
+			// leaves nothing to find)
+			int posse = 0;
+			int cells = 0;
+			boolean stuck = false;
+			for (int left = combo; left != 0; left &= left - 1) {
+				int bit = free[Integer.numberOfTrailingZeros(left)];
+				int places = where[Integer.numberOfTrailingZeros(bit)];
+				posse |= bit;
+				stuck |= places == 0;
+				cells |= places;
+			}
+			
+			// if those n numbers only fit in n Tiles, the Tiles can only be those numbers
+			if (!stuck && Integer.bitCount(cells) == size)
+				for (int left = cells; left != 0; left &= left - 1)
+					removed |= board.eliminate(tiles[Integer.numberOfTrailingZeros(left)], ~posse & Tile.ALL);
+		}
+		return removed;
+	}
+	
+	/**
+	 * Finds the next combination of the same size (Gosper's hack)
+	 * @param combo a set of indices, as bits (not 0)
+	 * @return the smallest bigger set with as many indices
+	 */
+	private static int nextCombination(int combo) {
+		int lowest = combo & -combo;
+		int carried = combo + lowest;
+		return (((carried ^ combo) >>> 2) / lowest) | carried;
+	}
+}
\ No newline at end of file
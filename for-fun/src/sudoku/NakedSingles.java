@@ -0,0 +1,21 @@
+package sudoku;
+
+/**
+ * Finds naked singles: a Tile left with only one possibility, whose number then cannot be anywhere
+ * else in the unit (even before the Tile is set to it)
+ * <br>
+ * The cheapest rule, as it looks at each Tile of the unit once, so it runs first
+ * @author faith
+ */
+public class NakedSingles implements Deduction {
+	public boolean apply(Board board, int unit) {
+		Tile[] tiles = board.getUnit(unit);
+		boolean removed = false;
+		
+		// for each open Tile with just one possibility, take that possibility from the rest of the unit
+		for (Tile single : tiles) if (!single.hasNum() && single.getCandidateCount() == 1)
+			for (Tile other : tiles) if (other != single)
+				removed |= board.eliminate(other, single.getCandidates());
+		return removed;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package sudoku;
+
+/**
+ * Finds naked subsets: n Tiles of a unit whose possibilities are all among the same n numbers, so
+ * no other Tile in the unit can be any of those numbers EVEN THOUGH it is not known which of the
+ * n Tiles has each number
+ * @author faith
+ */
+public class NakedSubsets implements Deduction {
+	/**
+	 * the possibilities of the open Tiles of the unit being checked (reused for every unit)
+	 */
+	private final int[] open;
+	
+	/**
+	 * Initializes a rule for naked subsets of any size
+	 */
+	public NakedSubsets() {
+		open = new int[Board.SIZE];
+	}
+	
+	public boolean apply(Board board, int unit) {
+		Tile[] tiles = board.getUnit(unit);
+		// gather the possibilities of each Tile which has possibilities (plural), and every number among them
+		int count = 0;
+		int numbers = 0;
+		for (Tile tile : tiles) if (!tile.hasNum() && tile.getCandidates() != 0) {
+			open[count++] = tile.getCandidates();
+			numbers |= tile.getCandidates();
+		}
+		boolean removed = false;
+		
+		// for each set of numbers (smaller than the # of open Tiles, or nothing could be removed)
+		for (int posse = numbers; posse != 0; posse = (posse - 1) & numbers) {
+			int size = Integer.bitCount(posse);
+			if (size >= count) continue;
+			// count the Tiles whose possibilities are all in the set
+			int inside = 0;
+			for (int i = 0; i < count; ++i) if ((open[i] & ~posse) == 0) ++inside;
+			
+			// if there are n Tiles sharing n possibilities
+			if (inside == size)
+				// remove all n possibilities from all other Tiles in unit
+				for (Tile other : tiles) if ((other.getCandidates() & ~posse) != 0)
+					removed |= board.eliminate(other, posse);
+		}
+		return removed;
+	}
+}
\ No newline at end of file
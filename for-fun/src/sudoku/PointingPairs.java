@@ -0,0 +1,86 @@
+package sudoku;
+
+/**
+ * Finds pointing pairs (and triples): a number whose places in a group all lie in one row or
+ * column, so it must be in that row or column within the group, and nowhere else along it
+ * @author faith
+ */
+public class PointingPairs implements Deduction {
+	/**
+	 * where each number could go in the group being checked (reused for every group)
+	 */
+	private final int[] where;
+	
+	/**
+	 * the places of each row of a group, as bits of positions in the group
+	 */
+	private static final int[] ROW_PLACES = rowPlaces();
+	/**
+	 * the places of each column of a group, as bits of positions in the group
+	 */
+	private static final int[] COL_PLACES = colPlaces();
+	
+	/**
+	 * Initializes the rule
+	 */
+	public PointingPairs() {
+		where = new int[Board.SIZE];
+	}
+	
+	public boolean apply(Board board, int unit) {
+		// only groups can point
+		if (!Board.isGroup(unit)) return false;
+		Tile[] tiles = board.getUnit(unit);
+		int free = Tile.ALL & ~Board.findPlaces(tiles, where);
+		boolean removed = false;
+		
+		// for each number not yet placed, check if its places are all in one row or column
+		for (int left = free; left != 0; left &= left - 1) {
+			int num = Tile.lowest(left);
+			int places = where[num - 1];
+			if (places == 0) continue;
+			Tile first = tiles[Integer.numberOfTrailingZeros(places)];
+			
+			for (int i = 0; i < Board.ROWS; ++i) if ((places & ~ROW_PLACES[i]) == 0)
+				removed |= eliminateOutside(board, Board.getRowUnit(first.getRow()), unit, num);
+			for (int i = 0; i < Board.COLS; ++i) if ((places & ~COL_PLACES[i]) == 0)
+				removed |= eliminateOutside(board, Board.getColUnit(first.getCol()), unit, num);
+		}
+		return removed;
+	}
+	
+	/**
+	 * Removes a number from the Tiles of a row or column outside a group
+	 * @param board the Board to remove from
+	 * @param line the unit of the row or column
+	 * @param group the unit of the group
+	 * @param num the number to remove
+	 * @return whether any possibilities were removed
+	 */
+	private static boolean eliminateOutside(Board board, int line, int group, int num) {
+		boolean removed = false;
+		for (Tile tile : board.getUnit(line))
+			if (Board.getGroupUnit(tile.getRow(), tile.getCol()) != group)
+				removed |= board.eliminate(tile, Tile.bit(num));
+		return removed;
+	}
+	
+	/**
+	 * @return the places of each row of a group, as bits of positions in the group
+	 */
+	private static int[] rowPlaces() {
+		int[] places = new int[Board.ROWS];
+		for (int row = 0; row < Board.ROWS; ++row) places[row] = ((1 << Board.COLS) - 1) << (row * Board.COLS);
+		return places;
+	}
+	
+	/**
+	 * @return the places of each column of a group, as bits of positions in the group
+	 */
+	private static int[] colPlaces() {
+		int[] places = new int[Board.COLS];
+		for (int row = 0; row < Board.ROWS; ++row) for (int col = 0; col < Board.COLS; ++col)
+			places[col] |= 1 << (row * Board.COLS + col);
+		return places;
+	}
+}
\ No newline at end of file
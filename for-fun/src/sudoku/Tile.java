@@ -2,13 +2,14 @@ package sudoku;
 
 // for drawing
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 
 /**
  * A Sudoku tile which 
  * <ul>
  * 	<li>knows its number (if it has one)</li> 
- * 	<li>or the numbers it could be (if it doesn't)</li>
+ * 	<li>or the numbers it could be (if it doesn't), as a bitmask</li>
  * 	<li>can be highlighted</li>
  * 	<li>knows its position</li>
  * 	<li>can reset itself</li>
@@ -21,9 +22,9 @@ public class Tile {
 	 */
 	private int num;
 	/**
-	 * an array indicating if this Tile could be i if canBe[i - 1] == true
+	 * the numbers this Tile could be, with bit i - 1 set if this Tile could be i
 	 */
-	private boolean[] canBe;
+	private int candidates;
 	
 	/**
 	 * the row of this Tile
@@ -43,6 +44,14 @@ public class Tile {
 	 * a value indicating that this Tile has no single number
 	 */
 	public static final int NO_NUM = -1;
+	/**
+	 * the candidates of a Tile which could be any number
+	 */
+	public static final int ALL = (1 << Board.SIZE) - 1;
+	/**
+	 * the text of each number, so that drawing makes no Strings
+	 */
+	private static final String[] LABELS = labels();
 	
 	/**
 	 * the background color of a regular Tile
@@ -68,7 +77,7 @@ public class Tile {
 	 * @param col the column of this Tile
 	 */
 	public Tile(int row, int col) {
-		// move num and canBe to default state
+		// move num and candidates to default state
 		reset();
 		// tiles start un-highlighted
 		highlight = false;
@@ -91,7 +100,7 @@ public class Tile {
 	 * @param num a number this Tile could possibliy have
 	 * @return whether this Tile could have num as its single number
 	 */
-	public boolean couldBe(int num) {return canBe[num - 1];}
+	public boolean couldBe(int num) {return (candidates & bit(num)) != 0;}
 	
 	/**
 	 * @param num a single number for this Tile
@@ -102,9 +111,8 @@ public class Tile {
 			// otherwise set the single number
 			this.num = num;
 			
-			// only canBe this number
-			canBe = new boolean[Board.SIZE];
-			canBe[num - 1] = true;
+			// only candidate is this number
+			candidates = bit(num);
 		}
 	}
 	
@@ -119,20 +127,29 @@ public class Tile {
 	public int getCol() {return col;}
 	
 	/**
-	 * @return an array of possible values
+	 * @return the numbers this Tile could be, with bit i - 1 set if this Tile could be i
 	 */
-	public int[] getAllPos() {
-		// count the number of possibles
-		int count = 0;
-		for (boolean pos : canBe)
-			if (pos) ++count;
-		// copy int-values into new array
-		int[] allPos = new int[count];
-		int addIndex = 0;
-		for (int i = 0; i < canBe.length; ++i)
-			if (canBe[i]) allPos[addIndex++] = (i + 1);
-		return allPos;
-	}
+	public int getCandidates() {return candidates;}
+	
+	/**
+	 * @return the # of numbers this Tile could be
+	 */
+	public int getCandidateCount() {return Integer.bitCount(candidates);}
+	
+	/**
+	 * @param num a number from 1 to Board.SIZE
+	 * @return the candidate bit of num (or 0 for a number out of range)
+	 */
+	public static int bit(int num) {return num > 0 && num <= Board.SIZE ? 1 << (num - 1) : 0;}
+	
+	/**
+	 * Finds the smallest number in a set of candidates, so that candidates can be looped over with
+	 * <br>
+	 * for (int left = mask; left != 0; left &= left - 1) ... lowest(left) ...
+	 * @param mask some candidate bits (not 0)
+	 * @return the smallest number whose bit is set in mask
+	 */
+	public static int lowest(int mask) {return Integer.numberOfTrailingZeros(mask) + 1;}
 	
 	/**
 	 * @param whether this Tile should be highlighted
@@ -145,32 +162,52 @@ public class Tile {
 	public void reset() {
 		// no single number
 		num = NO_NUM;
-		// set up all-true boolean array, since canBe any number
-		canBe = new boolean[Board.SIZE];
-		for (int i = 0; i < canBe.length; ++i) canBe[i] = true;
+		// any number is a candidate
+		candidates = ALL;
 	}
 	
-	/*
+	/**
 	 * @param num the number to set as possible
 	 */
-	public void addPos(int num) {canBe[num - 1] = true;}
+	public void addPos(int num) {candidates |= bit(num);}
 	
 	/**
 	 * @param num the number to set as impossible
+	 * @return whether num was possible before
 	 */
 	public boolean removePos(int num) {
-		if (canBe[num - 1]) {
-			canBe[num - 1] = false;
+		return removeAll(bit(num));
+	}
+	
+	/**
+	 * @param mask the numbers to set as impossible, as candidate bits
+	 * @return whether any of them were possible before
+	 */
+	public boolean removeAll(int mask) {
+		if ((candidates & mask) != 0) {
+			candidates &= ~mask;
 			return true;
 		}
 		return false;
 	}
 	
+	/**
+	 * Builds the text of each number
+	 * @return the text of 0 to Board.SIZE, by number
+	 */
+	private static String[] labels() {
+		String[] labels = new String[Board.SIZE + 1];
+		for (int i = 0; i < labels.length; ++i) labels[i] = Integer.toString(i);
+		return labels;
+	}
+	
 	/**
 	 * Draws the Tile in its current state
 	 * @param window the window to draw on
+	 * @param big the font for a single number
+	 * @param small the font for possibilities
 	 */
-	public void draw(Graphics window) {
+	public void draw(Graphics window, Font big, Font small) {
 		// set background color depending on highlight
 		if (highlight) window.setColor(HIGHLIGHT);
 		else window.setColor(NORMAL);
@@ -199,18 +236,20 @@ public class Tile {
 		// if this Tile has a single number
 		if (hasNum()) {
 			// draw the number in big font
-			window.setFont(window.getFont().deriveFont(60.0f));
-			window.drawString(num + "", col * SIZE, (row + 1) * SIZE);
+			window.setFont(big);
+			window.drawString(LABELS[num], col * SIZE, (row + 1) * SIZE);
 		}
 		// or if it has only possibilities
 		else {
 			// use smaller font
-			window.setFont(window.getFont().deriveFont(15.0f));
-			// loop over all possibilities, and if canBe this number
-			for (int i = 0; i < Board.SIZE; ++i) if (canBe[i])
+			window.setFont(small);
+			// loop over all possibilities, lowest bit first
+			for (int left = candidates; left != 0; left &= left - 1) {
+				int i = lowest(left) - 1;
 				// draw the number in the proper spot (I know, lots of math)
-				window.drawString((i + 1) + "", col * SIZE + (i % Board.COLS) * (SIZE / Board.COLS), 
+				window.drawString(LABELS[i + 1], col * SIZE + (i % Board.COLS) * (SIZE / Board.COLS), 
 					row * SIZE + (i / Board.COLS + 1) * (SIZE / Board.ROWS));
+			}
 		}
 	}
 }
\ No newline at end of file